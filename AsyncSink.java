@@ -0,0 +1,189 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Moves diagnostic I/O off the compile thread: reports go into a preallocated ring and a background
+// thread hands them to the delegate in batches, with one flush per batch
+public class AsyncSink implements DiagnosticSink {
+    // What report() does when the ring is full
+    public enum Overflow {
+        BLOCK,       // Backpressure: wait for the writer, nothing is lost
+        DROP_NEWEST  // Bounded loss: discard the entry and count it
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+    private final DiagnosticSink delegate;
+    private final Overflow overflow;
+    private final Diagnostic[] ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private long head = 0;  // Next entry the writer takes
+    private long tail = 0;  // Next free slot
+    private long written = 0;
+    private long dropped = 0;
+    private boolean closed = false;
+    private boolean urgent = false;  // flush() or close() is waiting: drain without waiting for a batch
+    private final Thread writer;
+
+    public AsyncSink(DiagnosticSink delegate) {
+        this(delegate, DEFAULT_CAPACITY, Overflow.BLOCK, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public AsyncSink(DiagnosticSink delegate, int capacity, Overflow overflow, long flushIntervalMillis) {
+        this.delegate = delegate;
+        this.overflow = overflow;
+        this.ring = new Diagnostic[capacity];
+        this.batchSize = Math.max(1, capacity / 4);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.writer = new Thread(this::drainLoop, "diagnostic-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    //F44
+    @Override
+    public void report(Diagnostic diagnostic) {
+        lock.lock();
+        try {
+            if (closed) {
+                dropped++;
+                return;
+            }
+            while (tail - head == ring.length) {
+                if (overflow == Overflow.DROP_NEWEST) {
+                    dropped++;
+                    return;
+                }
+                notEmpty.signal();
+                notFull.awaitUninterruptibly();
+            }
+            ring[(int) (tail % ring.length)] = diagnostic;
+            tail++;
+            // Wake the writer only for a full batch; otherwise it drains on its interval
+            if (tail - head >= batchSize) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        Diagnostic[] batch = new Diagnostic[ring.length];
+        while (true) {
+            int count;
+            boolean done;
+            lock.lock();
+            try {
+                long waitNanos = flushIntervalNanos;
+                while (tail == head && !closed && !urgent) {
+                    waitNanos = notEmpty.awaitNanos((waitNanos > 0) ? waitNanos : flushIntervalNanos);
+                }
+                // Let a partial batch grow until the interval is up, unless someone is waiting on it
+                while (tail - head < batchSize && !closed && !urgent && waitNanos > 0) {
+                    waitNanos = notEmpty.awaitNanos(waitNanos);
+                }
+                urgent = false;
+                count = (int) (tail - head);
+                for (int i = 0; i < count; i++) {
+                    int slot = (int) ((head + i) % ring.length);
+                    batch[i] = ring[slot];
+                    ring[slot] = null;
+                }
+                head = tail;
+                done = closed;
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                // Only close() stops the writer, so every accepted entry is written
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                for (int i = 0; i < count; i++) {
+                    delegate.report(batch[i]);
+                    batch[i] = null;
+                }
+                if (count > 0) {
+                    delegate.flush();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Diagnostic writer error: " + e.getMessage());
+            }
+
+            lock.lock();
+            try {
+                written += count;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (done && count == 0) {
+                return;
+            }
+        }
+    }
+
+    // Blocks until everything reported so far has reached the delegate
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            long target = tail;
+            while (written < target && writer.isAlive()) {
+                urgent = true;
+                notEmpty.signal();
+                drained.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drains every accepted entry, then closes the delegate
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped > 0) {
+            System.err.println("Diagnostic log dropped " + dropped + " entries (ring buffer full).");
+        }
+        delegate.close();
+    }
+}
@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Transpiles every .py file under a directory tree concurrently
+public class BatchCompiler {
+    // One session per worker thread; each file still gets its own log
+    private static final ThreadLocal<CompilerSession> SESSIONS = ThreadLocal.withInitial(CompilerSession::new);
+
+    static class FileResult {
+        final Path source;
+        final Path output;
+        final boolean success;
+        final String message;
+        final long bytes;
+        final long millis;
+
+        FileResult(Path source, Path output, boolean success, String message, long bytes, long millis) {
+            this.source = source;
+            this.output = output;
+            this.success = success;
+            this.message = message;
+            this.bytes = bytes;
+            this.millis = millis;
+        }
+    }
+
+    //F34
+    public static List<FileResult> compileTree(Path inputRoot, Path outputRoot, int threads) throws IOException, InterruptedException {
+        return compileTree(inputRoot, outputRoot, threads, null);
+    }
+
+    // jsonLog, if not null, also receives every file's diagnostics tagged with its path relative to inputRoot
+    public static List<FileResult> compileTree(Path inputRoot, Path outputRoot, int threads, JsonLinesSink jsonLog)
+            throws IOException, InterruptedException {
+        return compileTree(inputRoot, outputRoot, threads, jsonLog, -1);
+    }
+
+    // maxDiagnostics: per-file diagnostic cap with grouping of repeats; -1 logs everything
+    public static List<FileResult> compileTree(Path inputRoot, Path outputRoot, int threads, JsonLinesSink jsonLog,
+            int maxDiagnostics) throws IOException, InterruptedException {
+        List<Path> sources;
+        try (Stream<Path> walk = Files.walk(inputRoot)) {
+            sources = walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".py"))
+                          .sorted()
+                          .collect(Collectors.toList());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>();
+            for (Path source : sources) {
+                futures.add(executor.submit(() -> compileFile(inputRoot, outputRoot, source, jsonLog, maxDiagnostics)));
+            }
+
+            List<FileResult> results = new ArrayList<>();
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // compileFile catches all failures a file can cause, so this is an Error such as OOM
+                    throw new IllegalStateException("Batch worker died: " + e.getCause(), e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // foo/bar.py -> <outputRoot>/foo/bar.java, with its log next to it as bar.log
+    private static FileResult compileFile(Path inputRoot, Path outputRoot, Path source, JsonLinesSink jsonLog,
+            int maxDiagnostics) {
+        long start = System.nanoTime();
+        Path relative = inputRoot.relativize(source);
+        String baseName = relative.toString().substring(0, relative.toString().length() - ".py".length());
+        Path output = outputRoot.resolve(baseName + ".java");
+        Path log = outputRoot.resolve(baseName + ".log");
+
+        long bytes = 0;
+        ErrorLogger logger = null;
+        try {
+            Files.createDirectories(output.getParent());
+            byte[] code = Files.readAllBytes(source);
+            bytes = code.length;
+            logger = new ErrorLogger(log.toString());
+            if (jsonLog != null) {
+                logger.addSink(jsonLog.forFile(relative.toString().replace('\\', '/')));
+            }
+            if (maxDiagnostics >= 0) {
+                logger.setAggregator(new DiagnosticAggregator(maxDiagnostics));
+            }
+
+            String javaCode = SESSIONS.get().compile(new String(code), logger, CompilerMetrics.disabled());
+            Files.write(output, javaCode.getBytes());
+            return new FileResult(source, output, true, "OK", bytes, elapsedMillis(start));
+        } catch (Exception | StackOverflowError e) {
+            // One broken file must not stop the others
+            return new FileResult(source, output, false, String.valueOf(e.getMessage()), bytes, elapsedMillis(start));
+        } finally {
+            if (logger != null) {
+                logger.close();
+            }
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    public static void printSummary(List<FileResult> results, long elapsedMillis, PrintStream out) {
+        long succeeded = 0;
+        long totalBytes = 0;
+        for (FileResult result : results) {
+            out.printf("%-6s %6d ms  %s%s%n", result.success ? "OK" : "FAILED", result.millis, result.source,
+                    result.success ? "" : " (" + result.message + ")");
+            if (result.success) {
+                succeeded++;
+            }
+            totalBytes += result.bytes;
+        }
+
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        out.println("----------------------------------------");
+        out.printf("Files: %d, succeeded: %d, failed: %d%n", results.size(), succeeded, results.size() - succeeded);
+        out.printf("Elapsed: %d ms, %.1f files/s, %.1f KB/s%n", elapsedMillis,
+                results.size() / seconds, totalBytes / 1024.0 / seconds);
+    }
+
+    // java BatchCompiler <input dir> <output dir> [threads] [--json-log=<file>] [--max-diagnostics=N]
+    public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        String jsonLogPath = null;
+        int maxDiagnostics = -1;
+        for (String arg : args) {
+            if (arg.startsWith("--json-log=")) {
+                jsonLogPath = arg.substring("--json-log=".length());
+            } else if (arg.startsWith("--max-diagnostics=")) {
+                maxDiagnostics = Integer.parseInt(arg.substring("--max-diagnostics=".length()));
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.size() < 2) {
+            System.err.println("Usage: java BatchCompiler <input dir> <output dir> [threads] [--json-log=<file>] [--max-diagnostics=N]");
+            return;
+        }
+        int threads = (positional.size() > 2) ? Integer.parseInt(positional.get(2)) : Runtime.getRuntime().availableProcessors();
+
+        // The pipeline traces every token to stdout and errors to stderr; each file's log keeps the errors
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        JsonLinesSink jsonLog = null;
+        try {
+            if (jsonLogPath != null) {
+                jsonLog = new JsonLinesSink(Paths.get(jsonLogPath));
+            }
+            long start = System.nanoTime();
+            List<FileResult> results = compileTree(Paths.get(positional.get(0)), Paths.get(positional.get(1)), threads, jsonLog,
+                    maxDiagnostics);
+            printSummary(results, elapsedMillis(start), stdout);
+        } catch (IOException e) {
+            stderr.println("File error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stderr.println("Batch interrupted.");
+        } finally {
+            if (jsonLog != null) {
+                jsonLog.close();
+            }
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+    }
+}
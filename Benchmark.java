@@ -0,0 +1,199 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+// Run with: java Benchmark [scenario]
+public class Benchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String scenario = (args.length > 0) ? args[0] : "all";
+
+        if (scenario.equals("all") || scenario.equals("print")) {
+            benchmarkPrintLoop();
+        }
+        if (scenario.equals("all") || scenario.equals("concat")) {
+            benchmarkStringAccumulation();
+        }
+        if (scenario.equals("all") || scenario.equals("exec")) {
+            benchmarkExecution();
+        }
+        if (scenario.equals("all") || scenario.equals("pipeline")) {
+            benchmarkPipeline();
+        }
+    }
+
+    // Generated program printing inside a loop, System.out vs buffered PrintWriter
+    private static void benchmarkPrintLoop() throws Exception {
+        String python = "for i in range(0, 500000):\n    print(i)\n";
+
+        CodeGenerator.bufferedOutput = false;
+        String direct = transpile(python);
+        CodeGenerator.bufferedOutput = true;
+        String buffered = transpile(python);
+        CodeGenerator.bufferedOutput = false;
+
+        System.out.println("print-in-loop (500000 prints, median of " + RUNS + " runs)");
+        System.out.printf("  System.out.println : %6d ms%n", runGenerated(direct));
+        System.out.printf("  buffered PrintWriter: %6d ms%n", runGenerated(buffered));
+    }
+
+    // Generated program growing a String inside a loop, reassignment vs StringBuilder rewrite
+    private static void benchmarkStringAccumulation() throws Exception {
+        String python = "s = \"\"\nfor i in range(0, 100000):\n    s = s + \"x\"\nif 1 < 2:\n    print(s)\n";
+
+        CodeGenerator.rewriteStringAccumulators = false;
+        String reassigned = transpile(python);
+        CodeGenerator.rewriteStringAccumulators = true;
+        String rewritten = transpile(python);
+
+        System.out.println("string accumulation (100000 iterations, median of " + RUNS + " runs)");
+        System.out.printf("  s = s + x          : %6d ms%n", runGenerated(reassigned));
+        System.out.printf("  StringBuilder      : %6d ms%n", runGenerated(rewritten));
+    }
+
+    // Repeated runs of one script: javac + java per run vs in-process compile with the bytecode cache
+    private static void benchmarkExecution() throws Exception {
+        String javaCode = transpile("x = 5\nfor i in range(0, 10):\n    print(i + x)\n");
+        PrintStream stdout = System.out;
+
+        long forked = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            runGenerated(javaCode, 1);
+            forked += System.nanoTime() - start;
+        }
+
+        JavaRunner.clearCache();
+        long[] inProcess = new long[RUNS];
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                JavaRunner.run(javaCode);
+                inProcess[i] = System.nanoTime() - start;
+            }
+        } finally {
+            System.setOut(stdout);
+        }
+
+        long cached = 0;
+        for (int i = 1; i < RUNS; i++) {
+            cached += inProcess[i];
+        }
+        System.out.println("repeated execution (" + RUNS + " runs)");
+        System.out.printf("  javac + java per run: %8.2f ms/run%n", forked / 1e6 / RUNS);
+        System.out.printf("  in-process, cold    : %8.2f ms%n", inProcess[0] / 1e6);
+        System.out.printf("  in-process, cached  : %8.2f ms/run%n", cached / 1e6 / (RUNS - 1));
+    }
+
+    // One large file through the sequential pipeline vs the pipelined lexer/parser/generator threads
+    private static void benchmarkPipeline() throws Exception {
+        StringBuilder python = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            python.append("x").append(i).append(" = ").append(i).append("\n")
+                  .append("if x").append(i).append(" > 3:\n    print(\"big\")\nelse:\n    print(x").append(i).append(")\n")
+                  .append("for i in range(0, 10):\n    print(x").append(i).append(")\n");
+        }
+        String code = python.toString();
+        ErrorLogger logger = new ErrorLogger(Writer.nullWriter());
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long sequential, pipelined, sequentialHeap, pipelinedHeap;
+        try {
+            for (int i = 0; i < 2; i++) {  // warm-up
+                MyCompiler.transpile(code, logger);
+                PipelinedCompiler.transpile(new StringReader(code), Writer.nullWriter(), logger);
+            }
+            resetPeakHeap();
+            long start = System.nanoTime();
+            MyCompiler.transpile(code, logger);
+            sequential = System.nanoTime() - start;
+            sequentialHeap = peakHeap();
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            PipelinedCompiler.transpile(new StringReader(code), Writer.nullWriter(), logger);
+            pipelined = System.nanoTime() - start;
+            pipelinedHeap = peakHeap();
+        } finally {
+            System.setOut(stdout);
+        }
+
+        System.out.println("large file (" + code.length() / 1024 + " KB of Python)");
+        System.out.printf("  sequential         : %6d ms, peak heap %4d MB%n", sequential / 1_000_000, sequentialHeap >> 20);
+        System.out.printf("  pipelined          : %6d ms, peak heap %4d MB%n", pipelined / 1_000_000, pipelinedHeap >> 20);
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    // Transpiles with the pipeline's debug output silenced
+    static String transpile(String pythonCode) {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return MyCompiler.readsourcefile(pythonCode);
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    static long runGenerated(String javaCode) throws IOException, InterruptedException {
+        return runGenerated(javaCode, RUNS);
+    }
+
+    // Compiles the generated class and returns the median wall time of running it in a fresh JVM
+    static long runGenerated(String javaCode, int runs) throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("transpiler-bench");
+        Path source = dir.resolve("output.java");
+        Files.write(source, javaCode.getBytes());
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac.run(null, null, null, "-d", dir.toString(), source.toString()) != 0) {
+            throw new IllegalStateException("Generated code does not compile:\n" + javaCode);
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(java, "-cp", dir.toString(), "output")
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            process.waitFor();
+            times[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+}
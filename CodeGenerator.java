@@ -5,34 +5,118 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 public class CodeGenerator {
-    private static final Set<String> declaredVariables =new HashSet<>();
+    // Per-generation state, so concurrent generateJavaCode calls never share it
+    private final Set<String> declaredVariables =new HashSet<>();
+    private final Map<String, String> variableTypes = new HashMap<>();
+    // String accumulators currently rewritten to a StringBuilder, mapped to the builder's name
+    private final Map<String, String> activeBuilders = new HashMap<>();
+    private CompileBudget budget = CompileBudget.unlimited();
+    // Rewrite `s = s + x` inside loops to StringBuilder appends
+    public static boolean rewriteStringAccumulators = true;
+    // Reuse generated Java for functions whose subtree and relevant state are unchanged
+    public static boolean cacheFunctions = true;
+    public static final FunctionCache functionCache = new FunctionCache(1024);
+    // Route prints through one buffered PrintWriter instead of System.out
+    public static boolean bufferedOutput = false;
+    // Prints between flushes in buffered mode, 0 flushes only at exit
+    public static int flushThreshold = 0;
     //F16
     public static String generateJavaCode(ASTNode ast) throws IOException {
-        StringBuilder javaCode = new StringBuilder();
-        declaredVariables.clear(); 
+        return new CodeGenerator().generate(ast);
+    }
+
+    private String generate(ASTNode ast) {
+        return generate(ast, new StringBuilder());
+    }
+
+    // Generates into a caller-owned buffer, clearing it and this generator's symbol tables first
+    public String generate(ASTNode ast, StringBuilder javaCode) {
+        reset();
+        javaCode.setLength(0);
+        begin(javaCode);
+
+        // Translate AST to Java Code
+        translateAST(ast, javaCode);
+
+        end(javaCode);
+        return javaCode.toString(); // ✅ Return Java Code as String
+    }
+
+    // Checked once per AST node visited
+    public void setBudget(CompileBudget budget) {
+        this.budget = budget;
+    }
+
+    public void reset() {
+        declaredVariables.clear();
+        variableTypes.clear();
+        activeBuilders.clear();
+    }
+
+    // Streaming use: begin(), translateStatement() for each top-level statement in order, then end()
+    public void begin(StringBuilder javaCode) {
         // Add Java Imports
-        javaCode=addJavaImports(javaCode);
+        addJavaImports(javaCode);
 
         // Class Declaration
         javaCode.append("public class output {\n");
-        javaCode.append("    public static void main(String[] args) {\n");
+        if (bufferedOutput) {
+            addBufferedOutput(javaCode);
+            javaCode.append("    private static void run(String[] args) {\n");
+        } else {
+            javaCode.append("    public static void main(String[] args) {\n");
+        }
+    }
 
-        // Translate AST to Java Code
-        translateAST(ast, javaCode);
+    public void translateStatement(ASTNode statement, StringBuilder javaCode) {
+        translateAST(statement, javaCode);
+    }
 
+    public void end(StringBuilder javaCode) {
         // Close main method and class
         javaCode.append("    }\n");
         javaCode.append("}\n");
-
-        return javaCode.toString(); // ✅ Return Java Code as String
     }
     //F17
     private static StringBuilder addJavaImports(StringBuilder javaCode) {
+        if (bufferedOutput) {
+            javaCode.append("import java.io.*;\n");
+        }
         return javaCode.append("import java.util.*;\n\n");
     }
-    private static void translateAST(ASTNode ast, StringBuilder javaCode) {
+    //F30
+    private static void addBufferedOutput(StringBuilder javaCode) {
+        javaCode.append("    private static final PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16), false);\n");
+        if (flushThreshold > 0) {
+            javaCode.append("    private static int pendingPrints = 0;\n");
+        }
+        javaCode.append("\n");
+        // Flush in finally rather than a shutdown hook so in-process runs see their output
+        javaCode.append("    public static void main(String[] args) {\n");
+        javaCode.append("        try {\n");
+        javaCode.append("            run(args);\n");
+        javaCode.append("        } finally {\n");
+        javaCode.append("            out.flush();\n");
+        javaCode.append("        }\n");
+        javaCode.append("    }\n\n");
+        javaCode.append("    private static void println(Object value) {\n");
+        javaCode.append("        out.println(value);\n");
+        if (flushThreshold > 0) {
+            javaCode.append("        if (++pendingPrints >= ").append(flushThreshold).append(") {\n");
+            javaCode.append("            out.flush();\n");
+            javaCode.append("            pendingPrints = 0;\n");
+            javaCode.append("        }\n");
+        }
+        javaCode.append("    }\n\n");
+    }
+    private static String printCall() {
+        return bufferedOutput ? "println(" : "System.out.println(";
+    }
+    private void translateAST(ASTNode ast, StringBuilder javaCode) {
+        budget.check();
         if (ast.type.equals("Script")) {
             for (ASTNode child : ast.children) {
                 translateAST(child, javaCode);
@@ -66,15 +150,112 @@ public class CodeGenerator {
     }
     
     //F18
-    private static void generateLoops(ASTNode ast, StringBuilder javaCode) {
+    private void generateLoops(ASTNode ast, StringBuilder javaCode) {
+        List<String> accumulators = findStringAccumulators(ast);
+        // A block of its own, so sibling loops over the same variable can each declare the same builder name
+        if (!accumulators.isEmpty()) {
+            javaCode.append("        {\n");
+        }
+        for (String variable : accumulators) {
+            String builder = variable + "$builder";
+            activeBuilders.put(variable, builder);
+            javaCode.append("        StringBuilder ").append(builder)
+                    .append(" = new StringBuilder(").append(variable).append(");\n");
+        }
+
         if (ast.type.equals("ForLoop")) {
             generateForLoop(ast, javaCode);
         } else if (ast.type.equals("WhileLoop")) {
             generateWhileLoop(ast, javaCode);
         }
+
+        // Materialize the String once the loop is done
+        for (String variable : accumulators) {
+            javaCode.append("        ").append(variable).append(" = ")
+                    .append(activeBuilders.remove(variable)).append(".toString();\n");
+        }
+        if (!accumulators.isEmpty()) {
+            javaCode.append("        }\n");
+        }
+    }
+    //F31
+    // A String variable qualifies when every use inside the loop is of the form `s = s + ...`
+    private List<String> findStringAccumulators(ASTNode loop) {
+        List<String> accumulators = new ArrayList<>();
+        if (!rewriteStringAccumulators) {
+            return accumulators;
+        }
+        Set<String> candidates = new HashSet<>();
+        collectAccumulations(loop, candidates);
+        for (String variable : candidates) {
+            if ("String".equals(variableTypes.get(variable)) && !activeBuilders.containsKey(variable)
+                    && onlyAccumulates(loop, variable)) {
+                accumulators.add(variable);
+            }
+        }
+        return accumulators;
+    }
+
+    private static void collectAccumulations(ASTNode node, Set<String> candidates) {
+        if (node.type.equals("Assignment") && isAccumulation(node)) {
+            candidates.add(node.value);
+        }
+        for (ASTNode child : node.children) {
+            collectAccumulations(child, candidates);
+        }
+    }
+
+    // True for `s = s + a + b ...`, i.e. a left-leaning chain of '+' that starts with s
+    private static boolean isAccumulation(ASTNode assignment) {
+        if (assignment.children.isEmpty() || !assignment.children.get(0).type.equals("Expression")) {
+            return false;
+        }
+        ASTNode node = assignment.children.get(0);
+        while (node.type.equals("Expression")) {
+            if (!node.value.equals("+")) {
+                return false;
+            }
+            node = node.children.get(0);
+        }
+        return node.type.equals("Operand") && node.value.equals(assignment.value);
+    }
+
+    private static boolean onlyAccumulates(ASTNode node, String variable) {
+        if (node.type.equals("Assignment") && node.value.equals(variable)) {
+            if (!isAccumulation(node)) {
+                return false;
+            }
+            for (ASTNode appended : appendedValues(node)) {
+                if (!onlyAccumulates(appended, variable)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!node.type.equals("Assignment") && !node.type.equals("Function") && !node.type.equals("StringLiteral")
+                && variable.equals(node.value)) {
+            return false;  // Read somewhere else in the loop, the String must stay current
+        }
+        for (ASTNode child : node.children) {
+            if (!onlyAccumulates(child, variable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Right-hand operands of an accumulation, in append order
+    private static List<ASTNode> appendedValues(ASTNode assignment) {
+        List<ASTNode> values = new ArrayList<>();
+        ASTNode node = assignment.children.get(0);
+        while (node.type.equals("Expression")) {
+            values.add(0, node.children.get(1));
+            node = node.children.get(0);
+        }
+        return values;
     }
 
-    private static void generateForLoop(ASTNode ast, StringBuilder javaCode) {
+    private void generateForLoop(ASTNode ast, StringBuilder javaCode) {
         if (ast.children.size() < 2) {
             System.err.println("⚠ Error: ForLoop node has insufficient children.");
             return;
@@ -100,6 +281,7 @@ public class CodeGenerator {
         }
 
         if (rangeEnd != null) {
+            variableTypes.put(loopVar.value, "int");
             String start = (rangeStart != null) ? rangeStart.value : "0";
             String end = rangeEnd.value;
             String step = (rangeStep != null) ? rangeStep.value : "1";
@@ -122,7 +304,7 @@ public class CodeGenerator {
     }
     
 
-    private static void generateWhileLoop(ASTNode ast, StringBuilder javaCode) {
+    private void generateWhileLoop(ASTNode ast, StringBuilder javaCode) {
         javaCode.append("        while (").append(translateExpression(ast.children.get(0))).append(") {\n");
 
         for (int i = 1; i < ast.children.size(); i++) {
@@ -131,7 +313,66 @@ public class CodeGenerator {
         javaCode.append("        }\n");
     }
     //F19
-    private static void generateFunction(ASTNode ast, StringBuilder javaCode) {
+    private void generateFunction(ASTNode ast, StringBuilder javaCode) {
+        if (!cacheFunctions) {
+            emitFunction(ast, javaCode);
+            return;
+        }
+
+        // Output only depends on the state of names that appear in the subtree
+        Set<String> names = new TreeSet<>();
+        collectNames(ast, names);
+        Map<String, String> stateBefore = new HashMap<>();
+        List<String> state = new ArrayList<>();
+        state.add(bufferedOutput + "," + rewriteStringAccumulators);
+        for (String name : names) {
+            String nameState = nameState(name);
+            stateBefore.put(name, nameState);
+            state.add(name + "," + nameState);
+        }
+        String key = FunctionCache.key(ast, state);
+
+        FunctionCache.Entry cached = functionCache.get(key);
+        if (cached == null) {
+            int start = javaCode.length();
+            emitFunction(ast, javaCode);
+
+            Set<String> declared = new HashSet<>();
+            Map<String, String> types = new HashMap<>();
+            for (String name : names) {
+                if (!nameState(name).equals(stateBefore.get(name))) {
+                    if (declaredVariables.contains(name)) {
+                        declared.add(name);
+                    }
+                    if (variableTypes.containsKey(name)) {
+                        types.put(name, variableTypes.get(name));
+                    }
+                }
+            }
+            functionCache.put(key, new FunctionCache.Entry(javaCode.substring(start), declared, types));
+            return;
+        }
+
+        // ✅ Replay the declarations the function made so later code generates the same way
+        javaCode.append(cached.javaCode);
+        declaredVariables.addAll(cached.declaredVariables);
+        variableTypes.putAll(cached.variableTypes);
+    }
+
+    private String nameState(String name) {
+        return declaredVariables.contains(name) + "," + variableTypes.get(name) + "," + activeBuilders.get(name);
+    }
+
+    private static void collectNames(ASTNode node, Set<String> names) {
+        if (node.value != null) {
+            names.add(node.value);
+        }
+        for (ASTNode child : node.children) {
+            collectNames(child, names);
+        }
+    }
+
+    private void emitFunction(ASTNode ast, StringBuilder javaCode) {
         List<String> parameters = new ArrayList<>();
     
         // ✅ Extract function parameters
@@ -160,7 +401,7 @@ public class CodeGenerator {
     }
     
     //F20
-    private static void generateIfStatement(ASTNode ast, StringBuilder javaCode) {
+    private void generateIfStatement(ASTNode ast, StringBuilder javaCode) {
         String condition = translateExpression(ast.children.get(0));
         javaCode.append("        if (").append(condition).append(") {\n");
 
@@ -191,7 +432,7 @@ public class CodeGenerator {
 
     
     //F25
-    private static void generateAssignment(ASTNode ast, StringBuilder javaCode) {
+    private void generateAssignment(ASTNode ast, StringBuilder javaCode) {
         if (ast.children.isEmpty()) {
             System.err.println("⚠ Error: Assignment node has no value.");
             return;
@@ -199,6 +440,17 @@ public class CodeGenerator {
 
         ASTNode valueNode = ast.children.get(0);
         String variableName = ast.value;
+
+        String builder = activeBuilders.get(variableName);
+        if (builder != null) {
+            javaCode.append("        ").append(builder);
+            for (ASTNode appended : appendedValues(ast)) {
+                javaCode.append(".append(").append(translateExpression(appended)).append(")");
+            }
+            javaCode.append(";\n");
+            return;
+        }
+
         String inferredType = inferDataType(valueNode);
 
         String javaType = mapDataTypes(inferredType);
@@ -208,6 +460,7 @@ public class CodeGenerator {
             javaCode.append("        ").append(variableName).append(" = ").append(javaValue).append(";\n");
         } else {
             declaredVariables.add(variableName);
+            variableTypes.put(variableName, javaType);
             javaCode.append("        ").append(javaType).append(" ").append(variableName)
                     .append(" = ").append(javaValue).append(";\n");
         }
@@ -233,7 +486,7 @@ public class CodeGenerator {
     //F21
     private static void generatePrint(ASTNode ast, StringBuilder javaCode) {
         if (ast.children.isEmpty()) {
-            javaCode.append("        System.out.println();\n");
+            javaCode.append("        ").append(printCall()).append(bufferedOutput ? "\"\");\n" : ");\n");
             return;
         }
     
@@ -241,13 +494,13 @@ public class CodeGenerator {
         
         // Check if it's an expression (operator node)
         if (valueNode.type.equals("Expression")) {
-            javaCode.append("        System.out.println(").append(translateExpression(valueNode)).append(");\n");
+            javaCode.append("        ").append(printCall()).append(translateExpression(valueNode)).append(");\n");
         } else {
-            javaCode.append("        System.out.println(").append(formatJavaValue(valueNode)).append(");\n");
+            javaCode.append("        ").append(printCall()).append(formatJavaValue(valueNode)).append(");\n");
         }
     }
     //F22
-    private static String inferDataType(ASTNode valueNode) {
+    private String inferDataType(ASTNode valueNode) {
         if (valueNode == null) return "Object"; // Handle null case
     
         switch (valueNode.type) {
@@ -260,15 +513,37 @@ public class CodeGenerator {
                 return "String"; // Fallback to String if it's enclosed in quotes
             case "List":
                 return "list";
+            case "Expression":
+                return inferExpressionType(valueNode);
             default:
                 return "Object"; // Unknown type
         }
     }
     
+    private String inferExpressionType(ASTNode node) {
+        if (!node.type.equals("Expression")) {
+            if (node.type.equals("StringLiteral")) return "String";
+            String known = variableTypes.get(node.value);
+            if (known != null) return known.equals("List<Object>") ? "Object" : known;
+            if (node.value.matches("-?\\d+")) return "int";
+            if (node.value.matches("-?\\d+\\.\\d+")) return "double";
+            return "Object";
+        }
+        if (!node.value.equals("+")) return "boolean"; // Comparison
+        String left = inferExpressionType(node.children.get(0));
+        String right = inferExpressionType(node.children.get(1));
+        if (left.equals("String") || right.equals("String")) return "String";
+        if (left.equals("int") && right.equals("int")) return "int";
+        if ((left.equals("int") || left.equals("double")) && (right.equals("int") || right.equals("double"))) return "double";
+        return "Object";
+    }
+
     private static String formatJavaValue(ASTNode node) {
         if (node == null) return "null";
 
         switch (node.type) {
+            case "Expression":
+                return translateExpression(node);
             case "StringLiteral":
                 return "\"" + node.value + "\"";
             case "Value":
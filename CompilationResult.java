@@ -0,0 +1,68 @@
+import java.util.Collections;
+import java.util.List;
+
+// Everything one compilation produced, kept in memory: Java source or failure, diagnostics and stage timings
+public class CompilationResult {
+    private final String javaCode;
+    private final String failure;
+    private final boolean cancelled;
+    private final List<Diagnostic> diagnostics;
+    private final CompilerMetrics metrics;
+
+    private CompilationResult(String javaCode, String failure, boolean cancelled, List<Diagnostic> diagnostics, CompilerMetrics metrics) {
+        this.javaCode = javaCode;
+        this.failure = failure;
+        this.cancelled = cancelled;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+        this.metrics = metrics;
+    }
+
+    static CompilationResult success(String javaCode, List<Diagnostic> diagnostics, CompilerMetrics metrics) {
+        return new CompilationResult(javaCode, null, false, diagnostics, metrics);
+    }
+
+    static CompilationResult failure(String failure, List<Diagnostic> diagnostics, CompilerMetrics metrics) {
+        return new CompilationResult(null, failure, false, diagnostics, metrics);
+    }
+
+    // Stopped by CompileBudget: cancelled, out of time or out of steps
+    static CompilationResult cancelled(String reason, List<Diagnostic> diagnostics, CompilerMetrics metrics) {
+        return new CompilationResult(null, reason, true, diagnostics, metrics);
+    }
+
+    public boolean isSuccess() {
+        return javaCode != null;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Null when compilation failed
+    public String getJavaCode() {
+        return javaCode;
+    }
+
+    // Why compilation stopped, e.g. "Compilation failed: ..."; null on success
+    public String getFailure() {
+        return failure;
+    }
+
+    // What the UI's output pane shows: the Java code, or the failure message
+    public String getOutputText() {
+        return isSuccess() ? javaCode : failure;
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    // Timings of the stages that ran; a failed compile has only the stages before the failure
+    public List<CompilerMetrics.Stage> getStages() {
+        return metrics.getStages();
+    }
+
+    public CompilerMetrics getMetrics() {
+        return metrics;
+    }
+}
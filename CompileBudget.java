@@ -0,0 +1,79 @@
+// Cooperative cancellation plus time and step limits, checked by the Lexer line loop,
+// the Parser statement loops and the CodeGenerator traversal
+public class CompileBudget {
+    // Thrown out of the pipeline when a compile is cancelled or over budget; parser recovery must not swallow it
+    public static class Exceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Exceeded(String message) {
+            super(message);
+        }
+    }
+
+    // Checking the clock every step would cost more than the steps themselves
+    private static final int CLOCK_INTERVAL = 64;
+
+    private static final CompileBudget UNLIMITED = new CompileBudget(0, 0) {
+        @Override
+        public void check() {
+        }
+
+        @Override
+        public void checkpoint() {
+        }
+    };
+
+    private final long timeoutNanos;
+    private final long deadlineNanos;
+    private final long maxSteps;
+    private volatile boolean cancelled = false;
+    private long steps = 0;
+
+    // timeoutMillis and maxSteps of 0 mean no limit; the clock starts now
+    public CompileBudget(long timeoutMillis, long maxSteps) {
+        this.timeoutNanos = timeoutMillis * 1_000_000L;
+        this.deadlineNanos = (timeoutMillis > 0) ? System.nanoTime() + timeoutNanos : Long.MAX_VALUE;
+        this.maxSteps = (maxSteps > 0) ? maxSteps : Long.MAX_VALUE;
+    }
+
+    public static CompileBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    //F43
+    // Safe to call from any thread, e.g. the UI cancelling a compile running in the background
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    // One unit of work: a source line, a parsed statement or a generated AST node
+    public void check() {
+        steps++;
+        verify(steps % CLOCK_INTERVAL == 0);
+    }
+
+    // Between stages: always reads the clock, since the stages in between may not call check()
+    public void checkpoint() {
+        verify(true);
+    }
+
+    private void verify(boolean readClock) {
+        if (cancelled) {
+            throw new Exceeded("Compilation cancelled.");
+        }
+        if (steps > maxSteps) {
+            throw new Exceeded("Compilation stopped: step budget of " + maxSteps + " exceeded.");
+        }
+        if (readClock && System.nanoTime() > deadlineNanos) {
+            throw new Exceeded("Compilation stopped: time budget of " + timeoutNanos / 1_000_000 + " ms exceeded.");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Wall time, allocated bytes and item/diagnostic counts for each stage of one compilation
+public class CompilerMetrics {
+    public static class Stage {
+        public final String name;
+        public final long wallNanos;
+        public final long allocatedBytes;  // -1 when the JVM cannot measure it
+        public final long items;
+        public final String itemUnit;
+        public final long diagnostics;
+
+        Stage(String name, long wallNanos, long allocatedBytes, long items, String itemUnit, long diagnostics) {
+            this.name = name;
+            this.wallNanos = wallNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.items = items;
+            this.itemUnit = itemUnit;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final List<Stage> stages = new ArrayList<>();
+    private long stageStartNanos;
+    private long stageStartBytes;
+    private int stageStartDiagnostics;
+    // Flight Recorder view of the current stage; emitted even when this instance records nothing
+    private TranspilerEvents.Stage stageEvent;
+
+    public CompilerMetrics() {
+        this(true);
+    }
+
+    private CompilerMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Records nothing; lets callers instrument unconditionally
+    public static CompilerMetrics disabled() {
+        return new CompilerMetrics(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // True when the caller should count items for end(), i.e. metrics or a JFR recording is on
+    public boolean wantsCounts() {
+        return enabled || (stageEvent != null && stageEvent.isEnabled());
+    }
+
+    //F37
+    public void begin(ErrorLogger logger) {
+        stageEvent = new TranspilerEvents.Stage();
+        if (!enabled) {
+            if (stageEvent.isEnabled()) {
+                stageStartDiagnostics = logger.getErrorCount();
+                stageEvent.begin();
+            }
+            return;
+        }
+        stageEvent.begin();
+        stageStartDiagnostics = logger.getErrorCount();
+        stageStartBytes = allocatedBytes();
+        stageStartNanos = System.nanoTime();
+    }
+
+    public void end(String stage, long items, String itemUnit, ErrorLogger logger) {
+        commitStageEvent(stage, items, itemUnit, logger);
+        if (!enabled) {
+            return;
+        }
+        long wallNanos = System.nanoTime() - stageStartNanos;
+        long bytes = allocatedBytes();
+        stages.add(new Stage(stage, wallNanos,
+                (bytes < 0 || stageStartBytes < 0) ? -1 : bytes - stageStartBytes,
+                items, itemUnit, logger.getErrorCount() - stageStartDiagnostics));
+    }
+
+    private void commitStageEvent(String stage, long items, String itemUnit, ErrorLogger logger) {
+        TranspilerEvents.Stage event = stageEvent;
+        stageEvent = null;
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.items = items;
+            event.itemUnit = itemUnit;
+            event.diagnostics = logger.getErrorCount() - stageStartDiagnostics;
+            event.commit();
+        }
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (Stage stage : stages) {
+            total += stage.wallNanos;
+        }
+        return total;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"totalMicros\":").append(getTotalNanos() / 1000).append(",\"stages\":[");
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"stage\":").append(Json.quote(stage.name))
+                .append(",\"micros\":").append(stage.wallNanos / 1000)
+                .append(",\"allocatedBytes\":").append(stage.allocatedBytes)
+                .append(',').append(Json.quote(stage.itemUnit)).append(':').append(stage.items)
+                .append(",\"diagnostics\":").append(stage.diagnostics)
+                .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    static int countNodes(ParseTreeNode node) {
+        int count = 1;
+        for (ParseTreeNode child : node.children) {
+            count += (child != null) ? countNodes(child) : 0;
+        }
+        return count;
+    }
+
+    static int countNodes(ASTNode node) {
+        int count = 1;
+        for (ASTNode child : node.children) {
+            count += (child != null) ? countNodes(child) : 0;
+        }
+        return count;
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 if unsupported
+    static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
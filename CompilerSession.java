@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs many compilations with one logger and one set of buffers; not thread-safe, use one session per thread
+public class CompilerSession implements AutoCloseable {
+    // Buffers that grew past these after one huge input are dropped instead of pinning memory
+    private static final int MAX_RETAINED_TOKENS = 1 << 16;
+    private static final int MAX_RETAINED_CHARS = 1 << 20;
+
+    private final ErrorLogger logger;
+    private final boolean ownsLogger;
+    private final CodeGenerator generator = new CodeGenerator();
+    private final InternPool pool = new InternPool();  // Token text and AST leaves; cleared after each compile
+    private final List<Diagnostic> lexErrors = new ArrayList<>();
+    private ArrayList<Token> tokens = new ArrayList<>();
+    private ArrayList<Token> validTokens = new ArrayList<>();
+    private StringBuilder javaCode = new StringBuilder();
+    private long compilations = 0;
+
+    // Logs to the given file, kept open until close()
+    public CompilerSession(String logFilePath) {
+        this(new ErrorLogger(logFilePath), true);
+    }
+
+    // asyncLog: file writes happen in batches on a background thread; close() drains them
+    public CompilerSession(String logFilePath, boolean asyncLog) {
+        this(new ErrorLogger(logFilePath, asyncLog), true);
+    }
+
+    // Logs to a logger the caller owns and closes
+    public CompilerSession(ErrorLogger logger) {
+        this(logger, false);
+    }
+
+    // Keeps diagnostics in memory only
+    public CompilerSession() {
+        this(new ErrorLogger(), true);
+    }
+
+    // ownsLogger: close() closes the logger too
+    public CompilerSession(ErrorLogger logger, boolean ownsLogger) {
+        this.logger = logger;
+        this.ownsLogger = ownsLogger;
+    }
+
+    //F42
+    // Never throws: failures, diagnostics and stage timings all come back in the result
+    public CompilationResult compileToResult(String pythonCode) {
+        return compileToResult(pythonCode, CompileBudget.unlimited());
+    }
+
+    // A cancelled or over-budget compile returns promptly with the diagnostics reported so far
+    public CompilationResult compileToResult(String pythonCode, CompileBudget budget) {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        DiagnosticSink collector = diagnostics::add;
+        CompilerMetrics metrics = new CompilerMetrics();
+        logger.addSink(collector);
+        try {
+            return CompilationResult.success(compile(pythonCode, logger, metrics, budget), diagnostics, metrics);
+        } catch (CompileBudget.Exceeded e) {
+            return CompilationResult.cancelled(e.getMessage(), diagnostics, metrics);
+        } catch (MyCompiler.CompilationException e) {
+            return CompilationResult.failure(e.getMessage(), diagnostics, metrics);
+        } catch (Exception | StackOverflowError e) {
+            return CompilationResult.failure("Compilation failed: " + e.getMessage(), diagnostics, metrics);
+        } finally {
+            logger.removeSink(collector);
+        }
+    }
+
+    public String compile(String pythonCode) throws Exception {
+        return compile(pythonCode, logger, CompilerMetrics.disabled());
+    }
+
+    public String compile(String pythonCode, CompilerMetrics metrics) throws Exception {
+        return compile(pythonCode, logger, metrics);
+    }
+
+    // Uses a per-call logger, e.g. one log file per input in batch mode, while still reusing the buffers
+    public String compile(String pythonCode, ErrorLogger logger, CompilerMetrics metrics) throws Exception {
+        return compile(pythonCode, logger, metrics, CompileBudget.unlimited());
+    }
+
+    // Throws CompileBudget.Exceeded if the budget runs out or is cancelled
+    public String compile(String pythonCode, ErrorLogger logger, CompilerMetrics metrics, CompileBudget budget) throws Exception {
+        compilations++;
+        try {
+            // Step 1: Tokenization
+            metrics.begin(logger);
+            Lexer.tokenize(pythonCode, tokens, lexErrors, logger, budget, pool);
+            metrics.end("tokenize", tokens.size(), "tokens", logger);
+
+            metrics.begin(logger);
+            Lexer.recoverFromLexErrors(tokens, validTokens, logger);
+            metrics.end("recoverFromLexErrors", validTokens.size(), "tokens", logger);
+
+            if (validTokens.isEmpty()) {
+                throw new MyCompiler.CompilationException("Error: No tokens generated. Check your input.");
+            }
+
+            // Step 2: Parsing
+            metrics.begin(logger);
+            ParseTreeNode parseTree = Parser.buildParseTree(validTokens, logger, budget);
+            metrics.end("buildParseTree", metrics.wantsCounts() ? CompilerMetrics.countNodes(parseTree) : 0, "nodes", logger);
+
+            budget.checkpoint();  // Tree recovery and optimization do not check on their own
+            metrics.begin(logger);
+            parseTree = Parser.recoverFromSyntaxErrors(parseTree);
+            metrics.end("recoverFromSyntaxErrors", metrics.wantsCounts() ? CompilerMetrics.countNodes(parseTree) : 0, "nodes", logger);
+
+            // Step 3: Convert Parse Tree to AST
+            budget.checkpoint();
+            metrics.begin(logger);
+            ASTNode ast = Parser.convertParseTreeToAST(parseTree, pool);
+            metrics.end("convertParseTreeToAST", (ast != null && metrics.wantsCounts()) ? CompilerMetrics.countNodes(ast) : 0, "nodes", logger);
+            if (ast == null) {
+                throw new MyCompiler.CompilationException("Parsing failed. No AST generated.");
+            }
+
+            budget.checkpoint();
+            metrics.begin(logger);
+            ast = Optimizer.optimize(ast);
+            metrics.end("optimize", metrics.wantsCounts() ? CompilerMetrics.countNodes(ast) : 0, "nodes", logger);
+
+            // Step 4: Code Generation
+            budget.checkpoint();
+            metrics.begin(logger);
+            generator.setBudget(budget);
+            String java = generator.generate(ast, javaCode);
+            metrics.end("generateJavaCode", java.length(), "chars", logger);
+
+            PipelineStats.INSTANCE.record(metrics);
+            return java;
+        } finally {
+            logger.finishCompilation();  // Aggregated summaries, even for a failed or cancelled compile
+            release();
+        }
+    }
+
+    // Clears the buffers for the next compile, keeping their capacity unless it got out of hand
+    private void release() {
+        lexErrors.clear();
+        pool.clear();
+        tokens = (tokens.size() > MAX_RETAINED_TOKENS) ? new ArrayList<>() : clear(tokens);
+        validTokens = (validTokens.size() > MAX_RETAINED_TOKENS) ? new ArrayList<>() : clear(validTokens);
+        if (javaCode.capacity() > MAX_RETAINED_CHARS) {
+            javaCode = new StringBuilder();
+        } else {
+            javaCode.setLength(0);
+        }
+        generator.reset();
+        generator.setBudget(CompileBudget.unlimited());
+    }
+
+    private static <T> ArrayList<T> clear(ArrayList<T> list) {
+        list.clear();
+        return list;
+    }
+
+    public ErrorLogger getLogger() {
+        return logger;
+    }
+
+    public long getCompilations() {
+        return compilations;
+    }
+
+    @Override
+    public void close() {
+        if (ownsLogger) {
+            logger.close();
+        }
+    }
+}
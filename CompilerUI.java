@@ -1,18 +1,47 @@
 import java.awt.*;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.DefaultCaret;
 
 public class CompilerUI {
+    private static final int LIVE_DELAY_MILLIS = 400;  // Typing pause before a live re-transpile
+
     private JTextArea pythonCodeArea, javaCodeArea, consoleArea, errorLogArea;
+    // Very large output or logs are shown in these instead; they only render the visible lines
+    private JList<String> javaCodeList, errorLogList;
+    private JScrollPane outputScroll, errorLogScroll;
+    private JLabel outputLabel;
+    private JCheckBox liveBox;
+    // Lives as long as the window; writes error_log.txt off the EDT into rotating segments error_log.txt.1, .2, ...
+    // so the log stays bounded without truncating it under other users
+    private final CompilerSession session = new CompilerSession(ErrorLogger.rotating("error_log.txt",
+            MappedLogSink.DEFAULT_SEGMENT_BYTES, MappedLogSink.DEFAULT_SEGMENTS, true), true);
+    // The session is single-threaded, so every compile runs on this one worker and the EDT only shows results
+    private final ExecutorService compiler = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ui-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile CompileBudget inFlight;  // Cancelled when a newer compile is requested
+    private int generation = 0;               // EDT only; results of older generations are dropped
+    private volatile String shownJavaCode;    // Text in javaCodeArea, diffed against the next result; null if none
+    private Timer liveTimer;
 
     public CompilerUI() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            CompileBudget budget = inFlight;
+            if (budget != null) {
+                budget.cancel();
+            }
+            session.close();  // Drain pending log entries on exit
+        }));
         // Create main frame
         JFrame frame = new JFrame("🚀 Python to Java Compiler");
         frame.setSize(950, 650);
@@ -41,7 +70,7 @@ public class CompilerUI {
         headerLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
     
         JLabel inputLabel = new JLabel("📥 Input Python Code");
-        JLabel outputLabel = new JLabel("📤 Converted Java Code");
+        outputLabel = new JLabel("📤 Converted Java Code");
     
         inputLabel.setForeground(Color.WHITE);
         outputLabel.setForeground(outputColor);
@@ -50,20 +79,30 @@ public class CompilerUI {
         pythonCodeArea = createTextArea(bgColor, textColor, 14);
         javaCodeArea = createTextArea(bgColor, outputColor, 16);
         javaCodeArea.setEditable(false);
+        // Line edits from a re-transpile must not drag the view to the caret
+        ((DefaultCaret) javaCodeArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
     
         // 🎚 Scroll Panes with modern styling
         JScrollPane inputScroll = createScrollPane(pythonCodeArea);
-        JScrollPane outputScroll = createScrollPane(javaCodeArea);
+        outputScroll = createScrollPane(javaCodeArea);
+        javaCodeList = createList(bgColor, outputColor, 16);
     
         // 📝 Error Log Area (New area for showing error log content)
         errorLogArea = createTextArea(bgColor, Color.RED, 12);
         errorLogArea.setEditable(false);
-        JScrollPane errorLogScroll = createScrollPane(errorLogArea);
+        errorLogScroll = createScrollPane(errorLogArea);
+        errorLogList = createList(bgColor, Color.RED, 12);
     
         // 🔘 Buttons
         JButton convertButton = createButton("Convert");
         JButton manualButton = createButton("Manual");
         JButton codeButton = createButton("Code");
+        liveBox = new JCheckBox("Live");
+        liveBox.setBackground(bgColor);
+        liveBox.setForeground(textColor);
+        liveBox.setFont(new Font("Arial", Font.BOLD, 14));
+        liveBox.setFocusPainted(false);
+        liveBox.setToolTipText("Re-transpile " + LIVE_DELAY_MILLIS + " ms after you stop typing");
     
         // 📌 Code Panels
         JPanel codePanel = new JPanel(new GridLayout(1, 2, 10, 10));
@@ -82,6 +121,7 @@ public class CompilerUI {
         buttonPanel.add(convertButton);
         buttonPanel.add(manualButton);
         buttonPanel.add(codeButton);
+        buttonPanel.add(liveBox);
     
         // 📌 Error Log Panel
         JPanel errorLogPanel = new JPanel(new BorderLayout());
@@ -110,6 +150,20 @@ public class CompilerUI {
     
         // 🎯 Button Actions
         convertButton.addActionListener(e -> convertCode());
+        liveTimer = new Timer(LIVE_DELAY_MILLIS, e -> convertCode());
+        liveTimer.setRepeats(false);
+        liveBox.addActionListener(e -> {
+            if (liveBox.isSelected()) {
+                convertCode();
+            } else {
+                liveTimer.stop();
+            }
+        });
+        pythonCodeArea.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { scheduleLive(); }
+            public void removeUpdate(DocumentEvent e) { scheduleLive(); }
+            public void changedUpdate(DocumentEvent e) { }
+        });
         manualButton.addActionListener(e -> openManual());
         codeButton.addActionListener(e -> openGitHub());
     }
@@ -126,6 +180,16 @@ public class CompilerUI {
         return textArea;
     }
 
+    // ✅ Creates a read-only line list styled like createTextArea, for text too large for a text area
+    private JList<String> createList(Color bg, Color fg, int fontSize) {
+        JList<String> list = new JList<>();
+        list.setBackground(bg);
+        list.setForeground(fg);
+        list.setFont(new Font("Consolas", Font.PLAIN, fontSize));
+        list.setBorder(BorderFactory.createLineBorder(new Color(80, 80, 100)));
+        return list;
+    }
+
     // ✅ Creates a scroll pane with custom styling
     private JScrollPane createScrollPane(JTextArea textArea) {
         JScrollPane scrollPane = new JScrollPane(textArea);
@@ -166,37 +230,53 @@ public class CompilerUI {
         return button;
     }
 
-    // 🔥 Convert Code (Calls Compiler)
-    private void convertCode() {
-        clearErrorLogFile();
-        String pythonCode = pythonCodeArea.getText();
-        String javaCode = MyCompiler.readsourcefile(pythonCode);  // Call compiler
-        javaCodeArea.setText(javaCode);
-
-        // Reset the error log and read it from the errorlog.txt file
-        errorLogArea.setText("");  // Clear previous error logs
-        readErrorLog();
+    // Every keystroke restarts the timer, so only a pause in typing compiles
+    private void scheduleLive() {
+        if (liveBox.isSelected()) {
+            liveTimer.restart();
+        }
     }
 
-    private void clearErrorLogFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("error_log.txt"))) {
-            // Writing nothing will clear the file
-            writer.write("");
-        } catch (IOException e) {
-            errorLogArea.setText("Error clearing the error log file.");
+    // 🔥 Convert Code (Calls Compiler) on the worker; a newer request cancels this one
+    private void convertCode() {
+        liveTimer.stop();
+        String pythonCode = pythonCodeArea.getText();
+        CompileBudget previous = inFlight;
+        if (previous != null) {
+            previous.cancel();
         }
-    }
+        CompileBudget budget = new CompileBudget(0, 0);
+        inFlight = budget;
+        int requested = ++generation;
+        outputLabel.setText("📤 Converted Java Code (compiling...)");
 
-    // 📜 Reads the errorlog.txt file and updates the errorLogArea
-    private void readErrorLog() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("error_log.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                errorLogArea.append(line + "\n");
+        compiler.submit(() -> {
+            if (budget.isCancelled()) {
+                return;  // Superseded while still queued
             }
-        } catch (IOException e) {
-            errorLogArea.setText("Error reading error log file.");
-        }
+            CompilationResult result = session.compileToResult(pythonCode, budget);  // Call compiler
+            if (result.isCancelled()) {
+                return;
+            }
+            // 📜 Diagnostics come back with the result; rendered and laid into documents here, off the EDT,
+            // so the EDT swaps each pane once instead of firing an event per line
+            StringBuilder log = new StringBuilder();
+            for (Diagnostic diagnostic : result.getDiagnostics()) {
+                log.append(diagnostic).append("\n");
+            }
+            // Only the changed lines of the generated code are replaced, so the scroll position survives
+            PaneContent javaCode = PaneContent.of(result.getOutputText(), shownJavaCode);
+            PaneContent errors = PaneContent.of(log.toString());
+            SwingUtilities.invokeLater(() -> {
+                if (requested != generation) {
+                    return;  // A newer compile owns the panes
+                }
+                javaCode.show(outputScroll, javaCodeArea, javaCodeList);
+                shownJavaCode = javaCode.isWindowed() ? null : javaCode.getText();
+                errors.show(errorLogScroll, errorLogArea, errorLogList);
+                outputLabel.setText("📤 Converted Java Code");
+            });
+        });
     }
 
     // Open Manual PDF
@@ -223,6 +303,7 @@ public class CompilerUI {
     }
 
     public static void main(String[] args) {
+        PipelineStats.register();
         new CompilerUI();
     }
 }
@@ -0,0 +1,222 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Generates Python scripts in the subset Lexer and Parser understand, with optional injected errors
+//
+// Run with: java CorpusGenerator <statements> [depth] [identifiers] [errorDensity] [seed] > script.py
+public class CorpusGenerator {
+    public static final String[] ERROR_KINDS = {"missing ':'", "missing ')'", "misspelled name", "invalid token"};
+    private static final String[] INVALID_TOKENS = {"$", "?", "`"};
+
+    private final int depth;
+    private final int identifiers;
+    private final double errorDensity;
+    private final Random random;
+
+    private final StringBuilder python = new StringBuilder();
+    private final int[] injected = new int[ERROR_KINDS.length];
+    private int statements;
+    private int declared;
+    private boolean misspelledThisLine;
+
+    // depth: maximum block nesting; identifiers: distinct variable names; errorDensity: chance a statement gets one error
+    public CorpusGenerator(int depth, int identifiers, double errorDensity, long seed) {
+        this.depth = Math.max(0, depth);
+        this.identifiers = Math.max(1, identifiers);
+        this.errorDensity = errorDensity;
+        this.random = new Random(seed);
+    }
+
+    //F41
+    // Roughly one statement per line; functions go last because the parser ends a function body only at the next 'def'
+    public String generate(int count) {
+        python.setLength(0);
+        Arrays.fill(injected, 0);
+        statements = 0;
+        declared = 0;
+
+        int functions = count / 20;
+        while (statements < count - functions * 3) {
+            statement(0, depth);
+        }
+        for (int i = 0; statements < count; i++) {
+            function(i);
+        }
+        return python.toString();
+    }
+
+    public static String generate(int count, int depth, int identifiers, double errorDensity, long seed) {
+        return new CorpusGenerator(depth, identifiers, errorDensity, seed).generate(count);
+    }
+
+    // Errors injected by the last generate() call, indexed like ERROR_KINDS
+    public int getInjected(int kind) {
+        return injected[kind];
+    }
+
+    public int getInjectedTotal() {
+        int total = 0;
+        for (int count : injected) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void statement(int indent, int depthLeft) {
+        int choice = random.nextInt((depthLeft > 0 && declared > 0) ? 10 : 6);
+        if (declared == 0 || choice < 3) {
+            assignment(indent);
+        } else if (choice < 6) {
+            print(indent);
+        } else if (choice < 8) {
+            forLoop(indent, depthLeft);
+        } else if (choice < 9) {
+            whileLoop(indent, depthLeft);
+        } else {
+            ifChain(indent);
+        }
+    }
+
+    private void assignment(int indent) {
+        boolean broken = inject();
+        String name = (declared < identifiers) ? "v" + declared++ : anyName();
+        line(indent).append(name).append(" = ");
+        switch (random.nextInt(4)) {
+            case 0: python.append('"').append("s").append(random.nextInt(100)).append('"'); break;
+            case 1: python.append('[').append(random.nextInt(10)).append(", ").append(random.nextInt(10)).append(']'); break;
+            case 2: python.append(reference(broken && random.nextBoolean())).append(" + ").append(random.nextInt(10)); break;
+            default: python.append(random.nextInt(1000));
+        }
+        end(broken);
+    }
+
+    private void print(int indent) {
+        boolean broken = inject();
+        int kind = random.nextInt(3);
+        line(indent).append("print(").append(reference(broken && kind == 0));
+        if (broken && kind == 1) {
+            injected[1]++;
+        } else {
+            python.append(')');
+        }
+        end(broken && kind == 2);
+    }
+
+    private void forLoop(int indent, int depthLeft) {
+        line(indent).append("for i in range(0, ").append(1 + random.nextInt(10)).append(')');
+        header(inject());
+        body(indent + 1, depthLeft - 1);
+    }
+
+    private void whileLoop(int indent, int depthLeft) {
+        boolean broken = inject();
+        line(indent).append("while ").append(reference(broken && random.nextBoolean())).append(" < 0");
+        header(broken);
+        body(indent + 1, depthLeft - 1);
+    }
+
+    // if/elif/else always ends in else: an if block without one runs until the next elif/else in the file
+    private void ifChain(int indent) {
+        boolean broken = inject();
+        line(indent).append("if ").append(reference(broken && random.nextBoolean())).append(" > ").append(random.nextInt(100));
+        header(broken);
+        body(indent + 1, 0);
+        if (random.nextBoolean()) {
+            broken = inject();
+            line(indent).append("elif ").append(reference(broken && random.nextBoolean())).append(" == ").append(random.nextInt(100));
+            header(broken);
+            body(indent + 1, 0);
+        }
+        line(indent).append("else");
+        header(inject());
+        body(indent + 1, 0);
+    }
+
+    private void function(int index) {
+        line(0).append("def f").append(index).append("(a, b)");
+        header(inject());
+        for (int i = 0; i < 2; i++) {
+            line(1).append("print(a + b)");
+            end(inject());
+        }
+    }
+
+    private void body(int indent, int depthLeft) {
+        int size = 1 + random.nextInt(3);
+        for (int i = 0; i < size; i++) {
+            statement(indent, Math.max(0, depthLeft));
+        }
+    }
+
+    private StringBuilder line(int indent) {
+        for (int i = 0; i < indent; i++) {
+            python.append("    ");
+        }
+        statements++;
+        return python;
+    }
+
+    // Block header; a broken one whose name was not misspelled loses its ':'
+    private void header(boolean broken) {
+        if (broken && !misspelledThisLine) {
+            injected[0]++;
+        } else {
+            python.append(':');
+        }
+        misspelledThisLine = false;
+        python.append('\n');
+    }
+
+    // Ends a simple statement, with a stray invalid token when broken and nothing else went wrong
+    private void end(boolean broken) {
+        if (broken && !misspelledThisLine) {
+            python.append(' ').append(INVALID_TOKENS[random.nextInt(INVALID_TOKENS.length)]);
+            injected[3]++;
+        }
+        misspelledThisLine = false;
+        python.append('\n');
+    }
+
+    private String reference(boolean misspell) {
+        String name = anyName();
+        if (misspell) {
+            injected[2]++;
+            misspelledThisLine = true;
+            return misspell(name);
+        }
+        return name;
+    }
+
+    private String anyName() {
+        return "v" + random.nextInt(Math.max(1, declared));
+    }
+
+    // Doubles a letter, so the name stays a valid identifier but is never declared
+    private String misspell(String name) {
+        return name.charAt(0) + name;
+    }
+
+    private boolean inject() {
+        return errorDensity > 0 && random.nextDouble() < errorDensity;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java CorpusGenerator <statements> [depth] [identifiers] [errorDensity] [seed]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 2;
+        int identifiers = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+        double errorDensity = (args.length > 3) ? Double.parseDouble(args[3]) : 0;
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : 42;
+
+        CorpusGenerator generator = new CorpusGenerator(depth, identifiers, errorDensity, seed);
+        System.out.print(generator.generate(count));
+        StringBuilder summary = new StringBuilder("Injected errors:");
+        for (int i = 0; i < ERROR_KINDS.length; i++) {
+            summary.append(' ').append(ERROR_KINDS[i]).append('=').append(generator.getInjected(i));
+        }
+        System.err.println(summary);
+    }
+}
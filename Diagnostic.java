@@ -0,0 +1,80 @@
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// One problem found during compilation, with the correction the pipeline applied or suggested.
+// Holds its code and raw arguments; message and fix are rendered on first use.
+public class Diagnostic {
+    private static final Pattern LINE = Pattern.compile("line (\\d+)");
+    private static final Object[] NO_ARGS = {};
+
+    public final DiagnosticCode code;
+    public final String stage;    // Pipeline stage that reported it, e.g. "tokenize"; null if unknown
+    public final int line;        // Source line, -1 if unknown
+    public final long timestamp;  // When it was reported, in epoch millis; written later by async sinks
+    private final Object[] args;
+    private String message;       // Text as written to error_log.txt
+    private String fix;           // Correction applied or suggested, null if none
+    private boolean rendered;
+
+    public Diagnostic(DiagnosticCode code, int line, Object... args) {
+        this(code.stage, code, line, args);
+    }
+
+    public Diagnostic(String stage, DiagnosticCode code, int line, Object... args) {
+        this.code = code;
+        this.stage = stage;
+        this.line = line;
+        this.args = args;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // Free text that has no code of its own
+    public Diagnostic(String stage, int line, String message, String fix) {
+        this(stage, DiagnosticCode.MESSAGE, line, NO_ARGS);
+        this.message = message;
+        this.fix = fix;
+        this.rendered = true;
+    }
+
+    // Sinks may call these from other threads, e.g. the AsyncSink writer
+    public synchronized String getMessage() {
+        render();
+        return message;
+    }
+
+    public synchronized String getFix() {
+        render();
+        return fix;
+    }
+
+    private void render() {
+        if (!rendered) {
+            message = code.message(args);
+            fix = code.fix(line, args);
+            rendered = true;
+        }
+    }
+
+    // Recovers the line number from free-text messages such as "... at line 3"
+    static int lineOf(String message) {
+        Matcher matcher = LINE.matcher(message);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (stage != null) {
+            sb.append('[').append(stage).append("] ");
+        }
+        if (line >= 0) {
+            sb.append("line ").append(line).append(": ");
+        }
+        sb.append(getMessage());
+        String fix = getFix();
+        if (fix != null) {
+            sb.append(" -> ").append(fix);
+        }
+        return sb.toString();
+    }
+}
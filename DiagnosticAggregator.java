@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps error storms out of the log: diagnostics are grouped by code and line window, only the first few
+// of each group and at most maxPerCompilation in total reach the sinks, and the rest become one summary per code.
+// Used by ErrorLogger under its lock, so it needs no locking of its own.
+public class DiagnosticAggregator {
+    public static final int DEFAULT_EXAMPLES = 5;
+    public static final int DEFAULT_LINE_WINDOW = 50;
+
+    static class Group {
+        final String stage;
+        final DiagnosticCode code;
+        int firstLine = Integer.MAX_VALUE;
+        int lastLine = -1;
+        int count = 0;
+        int suppressed = 0;
+
+        Group(String stage, DiagnosticCode code) {
+            this.stage = stage;
+            this.code = code;
+        }
+    }
+
+    private final int examplesPerGroup;
+    private final int lineWindow;
+    private final int maxPerCompilation;  // 0 means no cap
+    private final Map<Long, Group> groups = new LinkedHashMap<>();
+    private int admitted = 0;
+    private int capped = 0;
+
+    // Cap only, with the default grouping
+    public DiagnosticAggregator(int maxPerCompilation) {
+        this(DEFAULT_EXAMPLES, DEFAULT_LINE_WINDOW, maxPerCompilation);
+    }
+
+    // examplesPerGroup: diagnostics kept per (code, line window); lineWindow: lines per window
+    public DiagnosticAggregator(int examplesPerGroup, int lineWindow, int maxPerCompilation) {
+        this.examplesPerGroup = Math.max(1, examplesPerGroup);
+        this.lineWindow = Math.max(1, lineWindow);
+        this.maxPerCompilation = Math.max(0, maxPerCompilation);
+    }
+
+    //F47
+    // True if the diagnostic should be written; either way it is counted in its group
+    boolean admit(Diagnostic diagnostic) {
+        Group group = groups.computeIfAbsent(key(diagnostic.code, diagnostic.line), k -> new Group(diagnostic.stage, diagnostic.code));
+        group.count++;
+        if (diagnostic.line >= 0) {
+            group.firstLine = Math.min(group.firstLine, diagnostic.line);
+            group.lastLine = Math.max(group.lastLine, diagnostic.line);
+        }
+        if (group.count > examplesPerGroup) {
+            group.suppressed++;
+            return false;
+        }
+        if (maxPerCompilation > 0 && admitted >= maxPerCompilation) {
+            group.suppressed++;
+            capped++;
+            return false;
+        }
+        admitted++;
+        return true;
+    }
+
+    // True if admit() would hold back the next diagnostic with this code and line, so callers can skip
+    // expensive work such as building suggestions for it
+    boolean wouldSuppress(DiagnosticCode code, int line) {
+        if (maxPerCompilation > 0 && admitted >= maxPerCompilation) {
+            return true;
+        }
+        Group group = groups.get(key(code, line));
+        return group != null && group.count >= examplesPerGroup;
+    }
+
+    // Code in the high half, line window in the low half
+    private long key(DiagnosticCode code, int line) {
+        int window = (line < 0) ? -1 : line / lineWindow;
+        return ((long) code.ordinal() << 32) | (window & 0xffffffffL);
+    }
+
+    // Groups that lost entries, folded into one summary per code, then starts over for the next compilation
+    List<Diagnostic> finish() {
+        Map<DiagnosticCode, Group> byCode = new LinkedHashMap<>();
+        Map<DiagnosticCode, Integer> windows = new LinkedHashMap<>();
+        for (Group group : groups.values()) {
+            if (group.suppressed == 0) {
+                continue;
+            }
+            Group total = byCode.computeIfAbsent(group.code, k -> new Group(group.stage, group.code));
+            total.count += group.count;
+            total.suppressed += group.suppressed;
+            total.firstLine = Math.min(total.firstLine, group.firstLine);
+            total.lastLine = Math.max(total.lastLine, group.lastLine);
+            windows.merge(group.code, 1, Integer::sum);
+        }
+
+        List<Diagnostic> summary = new ArrayList<>();
+        if (capped > 0) {
+            summary.add(new Diagnostic(DiagnosticCode.DIAGNOSTIC_LIMIT, -1, maxPerCompilation, capped));
+        }
+        for (Group total : byCode.values()) {
+            String lines = (total.lastLine < 0) ? "unknown lines"
+                    : (total.firstLine == total.lastLine) ? "line " + total.firstLine
+                    : "lines " + total.firstLine + "-" + total.lastLine;
+            int spread = windows.get(total.code);
+            summary.add(new Diagnostic(total.stage, DiagnosticCode.SUPPRESSED, (total.lastLine < 0) ? -1 : total.firstLine,
+                    total.suppressed, total.count, total.code, lines,
+                    (spread > 1) ? " (" + spread + " groups of " + lineWindow + " lines)" : ""));
+        }
+        groups.clear();
+        admitted = 0;
+        capped = 0;
+        return summary;
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.Arrays;
+
+// Every kind of diagnostic the pipeline reports. Sites pass raw arguments; the text is only built when a sink
+// writes it, so diagnostics that are aggregated away or never read cost no formatting.
+// {n} in a template (n is a single digit) is replaced by argument n; arrays render as Arrays.toString.
+public enum DiagnosticCode {
+    // Lexer
+    UNRECOGNIZED_TOKEN("tokenize", "Lexical Error: Unrecognized token: {0} at line {1}"),
+    INVALID_STRING("tokenize", "Lexical Error: Invalid string at line {0}"),
+    UNCLOSED_STRING("tokenize", "Lexical Error: Unclosed string at line {0}"),
+    INVALID_TOKEN_REMOVED("recoverFromLexErrors",
+            "Recovered from lexical error: Removed invalid token '{0}' at line {1}", "Removed invalid token '{0}'"),
+    INVALID_IDENTIFIER_REMOVED("recoverFromLexErrors",
+            "Recovered from lexical error: Removed invalid identifier '{0}' at line {1}", "Removed invalid identifier '{0}'"),
+
+    // Parser; the fix of the syntax errors comes from Parser.suggestCorrections
+    INVALID_RANGE_END("buildParseTree", "Syntax Error: Invalid end value in range()"),
+    INVALID_RANGE_STEP("buildParseTree", "Syntax Error: Invalid step value in range()"),
+    MISSING_PRINT_PAREN("buildParseTree", "Syntax Error: Missing ')' in print statement at line {0}", true),
+    UNEXPECTED_VALUE("buildParseTree", "Syntax Error: Expected {0}, but found {1}", true),
+    UNEXPECTED_TYPE("buildParseTree", "Syntax Error: Expected {0}, but found {1} ({2})", true),
+    UNEXPECTED_END("buildParseTree", "Syntax Error: Unexpected end of tokens. Expected {0}", true),
+    // {1} is the closest declared name, or null when the search was skipped
+    UNDEFINED_VARIABLE("buildParseTree",
+            "Semantic Error:⚠️ Warning: Undefined variable '{0}'. Did you mean '{1}'?", "Did you mean '{1}'?") {
+        @Override
+        String message(Object[] args) {
+            return (args[1] == null) ? render("Semantic Error:⚠️ Warning: Undefined variable '{0}'.", args) : super.message(args);
+        }
+
+        @Override
+        String fix(int line, Object[] args) {
+            return (args[1] == null) ? null : super.fix(line, args);
+        }
+    },
+
+    // Free text from ErrorLogger.logSyntaxError, logSemanticError and logError
+    SYNTAX_ERROR("buildParseTree", "Syntax Error at line {0}: {1}"),
+    SEMANTIC_ERROR("buildParseTree", "Semantic Error:{0}") {
+        @Override
+        String fix(int line, Object[] args) {
+            return (String) args[1];
+        }
+    },
+    MESSAGE(null, "{0}") {
+        @Override
+        String fix(int line, Object[] args) {
+            return (String) args[1];
+        }
+    },
+
+    // DiagnosticAggregator summaries
+    DIAGNOSTIC_LIMIT(null, "Diagnostic limit of {0} reached: {1} more diagnostics were not logged individually"),
+    SUPPRESSED(null, "Suppressed {0} of {1} '{2}' diagnostics on {3}{4}");
+
+    public final String stage;  // Stage that reports it; null if it varies
+    private final String messageTemplate;
+    private final String fixTemplate;
+    private final boolean suggested;
+
+    DiagnosticCode(String stage, String messageTemplate) {
+        this(stage, messageTemplate, null, false);
+    }
+
+    DiagnosticCode(String stage, String messageTemplate, String fixTemplate) {
+        this(stage, messageTemplate, fixTemplate, false);
+    }
+
+    DiagnosticCode(String stage, String messageTemplate, boolean suggested) {
+        this(stage, messageTemplate, null, suggested);
+    }
+
+    DiagnosticCode(String stage, String messageTemplate, String fixTemplate, boolean suggested) {
+        this.stage = stage;
+        this.messageTemplate = messageTemplate;
+        this.fixTemplate = fixTemplate;
+        this.suggested = suggested;
+    }
+
+    // Also shown on the console, not only written to the log
+    boolean isEchoed() {
+        return this == UNDEFINED_VARIABLE || this == SYNTAX_ERROR || this == SEMANTIC_ERROR;
+    }
+
+    //F48
+    String message(Object[] args) {
+        return render(messageTemplate, args);
+    }
+
+    String fix(int line, Object[] args) {
+        if (suggested) {
+            return Parser.suggestCorrections(this, line);
+        }
+        return (fixTemplate == null) ? null : render(fixTemplate, args);
+    }
+
+    static String render(String template, Object[] args) {
+        StringBuilder sb = new StringBuilder(template.length() + 32);
+        int last = 0;
+        int open;
+        while ((open = template.indexOf('{', last)) >= 0 && open + 2 < template.length()) {
+            sb.append(template, last, open);
+            Object arg = args[template.charAt(open + 1) - '0'];
+            sb.append((arg instanceof Object[]) ? Arrays.toString((Object[]) arg) : String.valueOf(arg));
+            last = open + 3;
+        }
+        return sb.append(template, last, template.length()).toString();
+    }
+}
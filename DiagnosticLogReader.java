@@ -0,0 +1,333 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Looks up entries of a JsonLinesSink log by source file and line range without reading the whole log.
+// The byte offset of every entry is kept in <log>.idx; only entries appended since the last run get scanned.
+//
+// Run with: java DiagnosticLogReader <log.jsonl> [file] [fromLine[-toLine]]
+public class DiagnosticLogReader implements AutoCloseable {
+    private static final int INDEX_MAGIC = 0x444c4958;  // "DLIX"
+    private static final int INDEX_VERSION = 1;
+    private static final byte[] FILE_PREFIX = "{\"file\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_FIELD = ",\"line\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    // Lines and log offsets of one source file's entries, in log order
+    static class Entries {
+        int[] lines = new int[16];
+        long[] offsets = new long[16];
+        int size = 0;
+
+        void add(int line, long offset) {
+            if (size == lines.length) {
+                lines = Arrays.copyOf(lines, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            lines[size] = line;
+            offsets[size] = offset;
+            size++;
+        }
+    }
+
+    private final Path indexPath;
+    private final FileChannel channel;
+    private final Map<String, Entries> index = new LinkedHashMap<>();  // "" for entries without a file
+    private long indexedLength = 0;  // Entries before this offset are in the index
+    private ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+    public DiagnosticLogReader(Path log) throws IOException {
+        this.indexPath = Paths.get(log.toString() + ".idx");
+        this.channel = FileChannel.open(log, StandardOpenOption.READ);
+        loadIndex();
+        refresh();
+    }
+
+    //F46
+    // Indexes entries appended since the last call and saves the index; a half-written last line waits for the next call
+    public void refresh() throws IOException {
+        long length = channel.size();
+        if (length < indexedLength) {
+            // Truncated or replaced: the old offsets mean nothing now
+            index.clear();
+            indexedLength = 0;
+        }
+        if (length == indexedLength) {
+            return;
+        }
+
+        channel.position(indexedLength);
+        InputStream in = Channels.newInputStream(channel);
+        byte[] chunk = new byte[1 << 16];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long lineStart = indexedLength;
+        long offset = indexedLength;
+        int read;
+        while (offset < length && (read = in.read(chunk, 0, (int) Math.min(chunk.length, length - offset))) > 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = chunk[i];
+                if (b != '\n') {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, lineLength * 2);
+                    }
+                    line[lineLength++] = b;
+                    continue;
+                }
+                if (lineLength > 0) {
+                    indexEntry(line, lineLength, lineStart);
+                }
+                lineLength = 0;
+                lineStart = offset + i + 1;
+            }
+            offset += read;
+        }
+        indexedLength = lineStart;
+        saveIndex();
+    }
+
+    // JsonLinesSink always starts with file and line, so those are read straight from the bytes;
+    // anything else falls back to the full parser
+    private void indexEntry(byte[] entry, int length, long offset) {
+        int pos = FILE_PREFIX.length;
+        if (startsWith(entry, length, 0, FILE_PREFIX)) {
+            String file = null;
+            if (startsWith(entry, length, pos, NULL)) {
+                file = "";
+                pos += NULL.length;
+            } else if (pos < length && entry[pos] == '"') {
+                int end = pos + 1;
+                while (end < length && entry[end] != '"' && entry[end] != '\\') {
+                    end++;
+                }
+                if (end < length && entry[end] == '"') {
+                    file = new String(entry, pos + 1, end - pos - 1, StandardCharsets.UTF_8);
+                    pos = end + 1;
+                }
+            }
+            if (file != null && startsWith(entry, length, pos, LINE_FIELD)) {
+                pos += LINE_FIELD.length;
+                boolean negative = pos < length && entry[pos] == '-';
+                if (negative) {
+                    pos++;
+                }
+                int line = 0;
+                int digits = 0;
+                while (pos < length && entry[pos] >= '0' && entry[pos] <= '9' && digits < 9) {
+                    line = line * 10 + (entry[pos++] - '0');
+                    digits++;
+                }
+                if (digits > 0 && pos < length && (entry[pos] == ',' || entry[pos] == '}')) {
+                    index.computeIfAbsent(file, f -> new Entries()).add(negative ? -line : line, offset);
+                    return;
+                }
+            }
+        }
+        indexEntry(new String(entry, 0, length, StandardCharsets.UTF_8), offset);
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, int from, byte[] prefix) {
+        if (from + prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void indexEntry(String json, long offset) {
+        Map<String, String> entry;
+        try {
+            entry = Json.parseObject(json);
+        } catch (RuntimeException e) {
+            return;  // Not one of ours; skip it rather than fail the whole index
+        }
+        String file = entry.get("file");
+        int line;
+        try {
+            line = Integer.parseInt(entry.getOrDefault("line", "-1"));
+        } catch (NumberFormatException e) {
+            line = -1;
+        }
+        index.computeIfAbsent((file == null) ? "" : file, f -> new Entries()).add(line, offset);
+    }
+
+    // Raw JSON entries for file (null for every file) with fromLine <= line <= toLine, in log order
+    public List<String> query(String file, int fromLine, int toLine) throws IOException {
+        long[] matches = new long[16];
+        int count = 0;
+        for (Map.Entry<String, Entries> e : index.entrySet()) {
+            if (file != null && !e.getKey().equals(file)) {
+                continue;
+            }
+            Entries entries = e.getValue();
+            for (int i = 0; i < entries.size; i++) {
+                if (entries.lines[i] >= fromLine && entries.lines[i] <= toLine) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = entries.offsets[i];
+                }
+            }
+        }
+        Arrays.sort(matches, 0, count);
+
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(readEntry(matches[i]));
+        }
+        return result;
+    }
+
+    public List<String> query(String file) throws IOException {
+        return query(file, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public Set<String> files() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    public int count(String file) {
+        Entries entries = index.get(file);
+        return (entries == null) ? 0 : entries.size;
+    }
+
+    // Reads the single line that starts at offset
+    private String readEntry(long offset) throws IOException {
+        buffer.clear();
+        long position = offset;
+        while (true) {
+            int start = buffer.position();
+            int read = channel.read(buffer, position);
+            for (int i = start; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return new String(buffer.array(), 0, i, StandardCharsets.UTF_8);
+                }
+            }
+            if (read <= 0) {
+                return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            }
+            position += read;
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    private void loadIndex() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return;
+            }
+            long length = in.readLong();
+            int files = in.readInt();
+            for (int f = 0; f < files; f++) {
+                String file = in.readUTF();
+                int size = in.readInt();
+                Entries entries = new Entries();
+                entries.lines = new int[Math.max(16, size)];
+                entries.offsets = new long[Math.max(16, size)];
+                for (int i = 0; i < size; i++) {
+                    entries.lines[i] = in.readInt();
+                    entries.offsets[i] = in.readLong();
+                }
+                entries.size = size;
+                index.put(file, entries);
+            }
+            indexedLength = length;
+        } catch (NoSuchFileException e) {
+            // First run: everything gets scanned
+        } catch (IOException e) {
+            // Unreadable or partly written index: start over
+            index.clear();
+            indexedLength = 0;
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a crash never leaves a half-written index
+    private void saveIndex() {
+        Path temp = Paths.get(indexPath.toString() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_VERSION);
+                out.writeLong(indexedLength);
+                out.writeInt(index.size());
+                for (Map.Entry<String, Entries> e : index.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    Entries entries = e.getValue();
+                    out.writeInt(entries.size);
+                    for (int i = 0; i < entries.size; i++) {
+                        out.writeInt(entries.lines[i]);
+                        out.writeLong(entries.offsets[i]);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Read-only directory and the like: the index still works, it just is not reused next time
+            System.err.println("Could not save diagnostics index " + indexPath + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java DiagnosticLogReader <log.jsonl> [file] [fromLine[-toLine]]");
+            return;
+        }
+        try (DiagnosticLogReader reader = new DiagnosticLogReader(Paths.get(args[0]))) {
+            if (args.length == 1) {
+                for (String file : reader.files()) {
+                    System.out.println(reader.count(file) + "\t" + (file.isEmpty() ? "(no file)" : file));
+                }
+                return;
+            }
+            int fromLine = Integer.MIN_VALUE;
+            int toLine = Integer.MAX_VALUE;
+            if (args.length > 2) {
+                String[] range = args[2].split("-", 2);
+                fromLine = Integer.parseInt(range[0]);
+                toLine = (range.length > 1) ? Integer.parseInt(range[1]) : fromLine;
+            }
+            for (String entry : reader.query(args[1], fromLine, toLine)) {
+                System.out.println(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+// Receives every diagnostic an ErrorLogger reports, e.g. the error_log.txt writer or an in-memory list
+public interface DiagnosticSink {
+    void report(Diagnostic diagnostic);
+
+    // Pushes buffered entries to their destination
+    default void flush() {
+    }
+
+    default void close() {
+    }
+}
@@ -1,45 +1,228 @@
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 
 public class ErrorLogger {
-    private PrintWriter writer;
+    // Writes the classic error_log.txt entry format
+    static class TextSink implements DiagnosticSink {
+        private final PrintWriter writer;
+        private final boolean flushEachEntry;
+
+        TextSink(Writer writer, boolean flushEachEntry) {
+            this.writer = new PrintWriter(flushEachEntry ? writer : new BufferedWriter(writer, 1 << 16));
+            this.flushEachEntry = flushEachEntry;
+        }
+
+        @Override
+        public void report(Diagnostic diagnostic) {
+            writer.print(format(diagnostic));
+            if (flushEachEntry) {
+                writer.flush(); // Ensure immediate write
+            }
+        }
+
+        // One whole entry, line separators included
+        static String format(Diagnostic diagnostic) {
+            String nl = System.lineSeparator();
+            return "------ Error Entry ------" + nl
+                    + "Timestamp: " + new Date(diagnostic.timestamp) + nl // Add timestamp for better tracking
+                    + diagnostic.getMessage() + nl
+                    + "-------------------------" + nl;
+        }
+
+        @Override
+        public void flush() {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+
+    // Echoes syntax and semantic errors to the console
+    static class ConsoleSink implements DiagnosticSink {
+        private final boolean flushEachEntry;
+
+        ConsoleSink(boolean flushEachEntry) {
+            this.flushEachEntry = flushEachEntry;
+        }
+
+        @Override
+        public void report(Diagnostic diagnostic) {
+            if (flushEachEntry) {
+                System.err.println(diagnostic.getMessage()); // Print error to console
+            } else {
+                System.err.print(diagnostic.getMessage() + System.lineSeparator());
+            }
+        }
+
+        @Override
+        public void flush() {
+            System.err.flush();
+        }
+    }
+
+    private final List<DiagnosticSink> sinks = new ArrayList<>();
+    private DiagnosticSink console = new ConsoleSink(true);
+    private int errorCount = 0;
+    private DiagnosticAggregator aggregator = null;  // null: every diagnostic is written
+
+    // Counts diagnostics but writes nothing until a sink is added
+    public ErrorLogger() {
+    }
 
     public ErrorLogger(String logFilePath) {
+        this(logFilePath, false);
+    }
+
+    // async: the file and console writes happen on a background thread, in batches with one flush each
+    public ErrorLogger(String logFilePath, boolean async) {
+        try {
+            FileWriter file = new FileWriter(logFilePath, true); // true for append
+            addSink(async ? new AsyncSink(new TextSink(file, false)) : new TextSink(file, true));
+        } catch (IOException e) {
+            System.err.println("Error creating log file: " + e.getMessage());
+        }
+        if (async) {
+            useAsyncConsole();
+        }
+    }
+
+    // Console lines are only a convenience, so they may be dropped rather than stall a compile
+    private void useAsyncConsole() {
+        console = new AsyncSink(new ConsoleSink(false), AsyncSink.DEFAULT_CAPACITY,
+                AsyncSink.Overflow.DROP_NEWEST, AsyncSink.DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    // Logs to rotating memory-mapped segments <path>.1, <path>.2, ... of segmentBytes each, keeping the newest
+    // `segments`, so disk use stays bounded however many runs share the log
+    public static ErrorLogger rotating(String logFilePath, long segmentBytes, int segments, boolean async) {
+        ErrorLogger logger = new ErrorLogger();
         try {
-            this.writer = new PrintWriter(new FileWriter(logFilePath, true)); // true for append
+            DiagnosticSink file = MappedLogSink.open(Paths.get(logFilePath), segmentBytes, segments);
+            logger.addSink(async ? new AsyncSink(file) : file);
         } catch (IOException e) {
             System.err.println("Error creating log file: " + e.getMessage());
         }
+        if (async) {
+            logger.useAsyncConsole();
+        }
+        return logger;
+    }
+
+    // Logs to any writer, e.g. a StringWriter when nothing should touch the disk
+    public ErrorLogger(Writer writer) {
+        addSink(new TextSink(writer, true));
+    }
+
+    public synchronized void addSink(DiagnosticSink sink) {
+        sinks.add(sink);
+    }
+
+    public synchronized void removeSink(DiagnosticSink sink) {
+        sinks.remove(sink);
+    }
+
+    // Groups and caps what reaches the sinks from now on; null turns it off
+    public synchronized void setAggregator(DiagnosticAggregator aggregator) {
+        this.aggregator = aggregator;
     }
     //F15
     public void logSyntaxError(int lineNumber, String message) {
-        String formattedMessage = "Syntax Error at line " + lineNumber + ": " + message;
-        System.err.println(formattedMessage); // Print error to console
-        logError(formattedMessage); // Log the error using existing logError method
+        log(new Diagnostic(DiagnosticCode.SYNTAX_ERROR, lineNumber, lineNumber, message));
     }
     //F28
     public void logSemanticError( String message) {
-        String formattedMessage = "Semantic Error:" + message;
-        System.err.println(formattedMessage); // Print error to console
-        logError(formattedMessage); // Log the error in the file
+        logSemanticError(Diagnostic.lineOf(message), message, null);
+    }
+
+    public void logSemanticError(int lineNumber, String message, String fix) {
+        log(new Diagnostic(DiagnosticCode.SEMANTIC_ERROR, lineNumber, message, fix));
     }
 
     public void logError(String message) {
-        if (writer != null) {
-            writer.println("------ Error Entry ------");
-            writer.println("Timestamp: " + new Date()); // Add timestamp for better tracking
-            writer.println(message);
-            writer.println("-------------------------");
-            writer.flush(); // Ensure immediate write
+        log(null, Diagnostic.lineOf(message), message, null);
+    }
+
+    public void log(String stage, int lineNumber, String message, String fix) {
+        log(new Diagnostic(stage, lineNumber, message, fix));
+    }
+
+    // Preferred over the free-text forms: the message is only built if a sink writes it
+    public void log(DiagnosticCode code, int lineNumber, Object... args) {
+        log(new Diagnostic(code, lineNumber, args));
+    }
+
+    // Syntax and semantic errors are echoed to the console too, whichever method reported them
+    public void log(Diagnostic diagnostic) {
+        if (record(diagnostic) && diagnostic.code.isEchoed()) {
+            console.report(diagnostic);
+        }
+    }
+
+    // Synchronized so entries from concurrent pipeline stages never interleave.
+    // Returns false if the aggregator held the diagnostic back; it still counts as an error.
+    private synchronized boolean record(Diagnostic diagnostic) {
+        errorCount++;
+        if (aggregator != null && !aggregator.admit(diagnostic)) {
+            return false;
         }
+        write(diagnostic);
+        return true;
     }
 
+    private void write(Diagnostic diagnostic) {
+        for (DiagnosticSink sink : sinks) {
+            sink.report(diagnostic);
+        }
+    }
+
+    // True if a diagnostic with this code and line would be held back by the aggregator
+    public synchronized boolean isSuppressed(DiagnosticCode code, int lineNumber) {
+        return aggregator != null && aggregator.wouldSuppress(code, lineNumber);
+    }
+
+    // End of one compilation: writes the aggregator's summaries and resets it for the next one
+    public synchronized void finishCompilation() {
+        if (aggregator == null) {
+            return;
+        }
+        for (Diagnostic summary : aggregator.finish()) {
+            write(summary);
+        }
+    }
+
+    public synchronized int getErrorCount() {
+        return errorCount;
+    }
+
+    // Waits until async sinks have written everything logged so far
+    public void flush() {
+        console.flush();
+        for (DiagnosticSink sink : snapshot()) {
+            sink.flush();
+        }
+    }
+
+    // Async sinks drain completely before their files are closed
     public void close() {
-        if (writer != null) {
-            writer.close();
+        console.close();
+        for (DiagnosticSink sink : snapshot()) {
+            sink.close();
         }
     }
-}
\ No newline at end of file
+
+    // Draining can take a while, so it happens outside the lock that log() needs
+    private synchronized List<DiagnosticSink> snapshot() {
+        return new ArrayList<>(sinks);
+    }
+}
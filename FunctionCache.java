@@ -0,0 +1,129 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// LRU cache of generated Java for Function subtrees, kept across generateJavaCode calls
+public class FunctionCache {
+    static class Entry {
+        final String javaCode;
+        // Generator state the function left behind, replayed on a hit
+        final Set<String> declaredVariables;
+        final Map<String, String> variableTypes;
+
+        Entry(String javaCode, Set<String> declaredVariables, Map<String, String> variableTypes) {
+            this.javaCode = javaCode;
+            this.declaredVariables = declaredVariables;
+            this.variableTypes = variableTypes;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Entry> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    public FunctionCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FunctionCache.Entry> eldest) {
+                return size() > FunctionCache.this.capacity;
+            }
+        };
+    }
+
+    //F33
+    // SHA-256 over (type, value, child count) of every node in pre-order
+    public static String structuralHash(ASTNode node) {
+        MessageDigest digest = newDigest();
+        updateDigest(digest, node);
+        return toHex(digest.digest());
+    }
+
+    // Hex SHA-256 of the text's UTF-8 bytes; JavaRunner keys its compiled classes with it
+    static String sha256(String text) {
+        return toHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Cache key: the subtree's structure plus the generator state its output depends on
+    static String key(ASTNode function, List<String> state) {
+        MessageDigest digest = newDigest();
+        updateDigest(digest, function);
+        for (String part : state) {
+            updateString(digest, part);
+        }
+        return toHex(digest.digest());
+    }
+
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    private static void updateDigest(MessageDigest digest, ASTNode node) {
+        updateString(digest, node.type);
+        updateString(digest, node.value);
+        updateString(digest, Integer.toString(node.children.size()));
+        for (ASTNode child : node.children) {
+            updateDigest(digest, child);
+        }
+    }
+
+    // Length-prefixed so ("ab", "c") and ("a", "bc") hash differently
+    private static void updateString(MessageDigest digest, String value) {
+        byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = (value != null) ? bytes.length : -1;
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+
+// Per-compilation sharing of repeated values: one String per distinct token text, and one node per distinct
+// (type, value) AST leaf. Scripts repeat the same few names and literals, so most tokens and leaves become
+// references to an existing object. Not thread-safe; a compilation uses one pool from one thread at a time.
+public class InternPool {
+    public static boolean enabled = true;  // Off: every call returns a fresh object, as before pooling
+
+    // Leaf types that never get children; shared nodes of these have an immutable, empty child list
+    private static final Set<String> LEAF_TYPES = Set.of(
+            "StringLiteral", "Operand", "Value", "Variable", "VariableReference", "Parameter",
+            "RangeStart", "RangeEnd", "RangeStep");
+
+    // Open addressing over power-of-two tables, kept at most half full; leaves are keyed by their own type and value
+    private String[] strings = new String[64];
+    private int size = 0;
+    private ASTNode[] leaves = new ASTNode[64];
+    private int leafCount = 0;
+
+    //F53
+    // text.substring(start, end), without allocating when an equal string is already pooled
+    public String intern(String text, int start, int end) {
+        if (!enabled) {
+            return text.substring(start, end);
+        }
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);  // Same as String.hashCode, so pooled strings probe alike
+        }
+        int mask = strings.length - 1;
+        int slot = mix(hash) & mask;
+        String candidate;
+        while ((candidate = strings[slot]) != null) {
+            if (candidate.length() == length && candidate.regionMatches(0, text, start, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String added = text.substring(start, end);
+        strings[slot] = added;
+        if (++size * 2 > strings.length) {
+            growStrings();
+        }
+        return added;
+    }
+
+    public String intern(String text) {
+        return (text == null) ? null : intern(text, 0, text.length());
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void growStrings() {
+        String[] old = strings;
+        strings = new String[old.length * 2];
+        int mask = strings.length - 1;
+        for (String s : old) {
+            if (s != null) {
+                int slot = mix(s.hashCode()) & mask;
+                while (strings[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                strings[slot] = s;
+            }
+        }
+    }
+
+    // The shared leaf for this type and value, or a fresh mutable node for types that can have children.
+    // Shared leaves must not be changed; replace them in their parent instead.
+    public ASTNode leaf(String type, String value) {
+        if (!enabled || !LEAF_TYPES.contains(type)) {
+            return new ASTNode(type, value);
+        }
+        int mask = leaves.length - 1;
+        int slot = leafHash(type, value) & mask;
+        ASTNode node;
+        while ((node = leaves[slot]) != null) {
+            if (node.type.equals(type) && Objects.equals(node.value, value)) {
+                return node;
+            }
+            slot = (slot + 1) & mask;
+        }
+        node = new ASTNode(type, value, Collections.emptyList());
+        leaves[slot] = node;
+        if (++leafCount * 2 > leaves.length) {
+            growLeaves();
+        }
+        return node;
+    }
+
+    private static int leafHash(String type, String value) {
+        return mix(type.hashCode() * 31 + Objects.hashCode(value));
+    }
+
+    private void growLeaves() {
+        ASTNode[] old = leaves;
+        leaves = new ASTNode[old.length * 2];
+        int mask = leaves.length - 1;
+        for (ASTNode node : old) {
+            if (node != null) {
+                int slot = leafHash(node.type, node.value) & mask;
+                while (leaves[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                leaves[slot] = node;
+            }
+        }
+    }
+
+    // Distinct strings and leaves held
+    public int size() {
+        return size + leafCount;
+    }
+
+    // Forgets everything for the next compilation, keeping the table unless it got large
+    public void clear() {
+        if (strings.length > (1 << 16)) {
+            strings = new String[64];
+        } else {
+            Arrays.fill(strings, null);
+        }
+        size = 0;
+        if (leaves.length > (1 << 16)) {
+            leaves = new ASTNode[64];
+        } else {
+            Arrays.fill(leaves, null);
+        }
+        leafCount = 0;
+    }
+}
@@ -0,0 +1,155 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+// Compiles generated Java in memory and runs it without writing output.java or forking javac/java
+public class JavaRunner {
+    private static final int CACHE_SIZE = 64;
+
+    // SHA-256 of the generated source -> bytecode of every class it declares
+    private static final Map<String, Map<String, byte[]>> compiledClasses =
+            Collections.synchronizedMap(new LinkedHashMap<String, Map<String, byte[]>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, byte[]>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+    private static long cacheHits = 0;
+    private static long cacheMisses = 0;
+
+    //F32
+    public static void run(String javaCode, String... args) {
+        Class<?> mainClass = load(javaCode);
+        try {
+            Method main = mainClass.getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Generated program failed: " + e.getCause(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Generated program has no main method: " + e.getMessage(), e);
+        }
+    }
+
+    // Loads the generated `output` class in a fresh class loader, compiling only on a cache miss
+    public static Class<?> load(String javaCode) {
+        String key = FunctionCache.sha256(javaCode);
+        Map<String, byte[]> classes = compiledClasses.get(key);
+        synchronized (JavaRunner.class) {
+            if (classes != null) {
+                cacheHits++;
+            } else {
+                cacheMisses++;
+            }
+        }
+        if (classes == null) {
+            classes = compile(javaCode);
+            compiledClasses.put(key, classes);
+        }
+
+        try {
+            return new ByteArrayClassLoader(classes).loadClass("output");
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Generated code does not declare class output", e);
+        }
+    }
+
+    private static Map<String, byte[]> compile(String javaCode) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new RuntimeException("No Java compiler available, run on a JDK rather than a JRE");
+        }
+
+        Map<String, ByteArrayOutputStream> outputs = new HashMap<>();
+        StandardJavaFileManager standardManager = javac.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        // Closing the forwarding manager closes the standard one, which holds the platform class path open
+        try (JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(standardManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                       JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        outputs.put(className, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        }) {
+            return compile(javac, fileManager, javaCode, outputs);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot close the compiler's file manager: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, byte[]> compile(JavaCompiler javac, JavaFileManager fileManager, String javaCode,
+                                               Map<String, ByteArrayOutputStream> outputs) {
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///output.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return javaCode;
+            }
+        };
+
+        StringWriter diagnostics = new StringWriter();
+        boolean success = javac.getTask(diagnostics, fileManager, null, null, null,
+                Collections.singletonList(source)).call();
+        if (!success) {
+            throw new RuntimeException("Generated code does not compile:\n" + diagnostics);
+        }
+
+        Map<String, byte[]> classes = new HashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : outputs.entrySet()) {
+            classes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return classes;
+    }
+
+    public static synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    public static synchronized long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public static void clearCache() {
+        compiledClasses.clear();
+    }
+
+    private static class ByteArrayClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        ByteArrayClassLoader(Map<String, byte[]> classes) {
+            // Generated code only needs the JDK, and a stale output.class on the classpath must not win
+            super(ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Just enough JSON for the one-object-per-line protocol of TranspileServer
+public class Json {
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    public static String array(List<String> values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(quote(values.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    // Parses a flat object; strings are unescaped, numbers, booleans and nested values are kept as raw text
+    public static Map<String, String> parseObject(String json) {
+        Map<String, String> result = new LinkedHashMap<>();
+        int[] pos = {skipWhitespace(json, 0)};
+        expect(json, pos, '{');
+        pos[0] = skipWhitespace(json, pos[0]);
+        if (peek(json, pos) == '}') {
+            return result;
+        }
+        while (true) {
+            pos[0] = skipWhitespace(json, pos[0]);
+            String key = parseString(json, pos);
+            pos[0] = skipWhitespace(json, pos[0]);
+            expect(json, pos, ':');
+            pos[0] = skipWhitespace(json, pos[0]);
+            result.put(key, (peek(json, pos) == '"') ? parseString(json, pos) : parseRaw(json, pos));
+            pos[0] = skipWhitespace(json, pos[0]);
+            char c = peek(json, pos);
+            pos[0]++;
+            if (c == '}') {
+                return result;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Expected ',' or '}' at offset " + (pos[0] - 1));
+            }
+        }
+    }
+
+    public static List<String> parseStringArray(String json) {
+        List<String> result = new ArrayList<>();
+        int[] pos = {skipWhitespace(json, 0)};
+        expect(json, pos, '[');
+        pos[0] = skipWhitespace(json, pos[0]);
+        if (peek(json, pos) == ']') {
+            return result;
+        }
+        while (true) {
+            pos[0] = skipWhitespace(json, pos[0]);
+            result.add(parseString(json, pos));
+            pos[0] = skipWhitespace(json, pos[0]);
+            char c = peek(json, pos);
+            pos[0]++;
+            if (c == ']') {
+                return result;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Expected ',' or ']' at offset " + (pos[0] - 1));
+            }
+        }
+    }
+
+    // Returns the raw text of a value inside a flat object line, e.g. an array, without parsing it
+    private static String parseRaw(String json, int[] pos) {
+        int start = pos[0];
+        int depth = 0;
+        boolean inString = false;
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]);
+            if (inString) {
+                if (c == '\\') {
+                    pos[0]++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                break;
+            }
+            pos[0]++;
+        }
+        return json.substring(start, pos[0]).trim();
+    }
+
+    private static String parseString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escaped = json.charAt(pos[0]++);
+            switch (escaped) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                    break;
+                default: sb.append(escaped); // \" \\ \/
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private static char peek(String json, int[] pos) {
+        if (pos[0] >= json.length()) {
+            throw new IllegalArgumentException("Unexpected end of JSON");
+        }
+        return json.charAt(pos[0]);
+    }
+
+    private static void expect(String json, int[] pos, char expected) {
+        if (peek(json, pos) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at offset " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes each diagnostic as one JSON object on its own line; DiagnosticLogReader indexes and queries the file
+//
+// {"file":"foo/bar.py","line":3,"stage":"buildParseTree","code":"UNEXPECTED_TYPE","message":"...","fix":"...","timestamp":1700000000000}
+public class JsonLinesSink implements DiagnosticSink {
+    private final PrintWriter writer;
+    private final String file;       // Source the entries belong to, null if unknown
+    private final boolean ownsWriter;
+
+    // Appends to the file, creating it if needed
+    public JsonLinesSink(Path path) throws IOException {
+        this(path, null);
+    }
+
+    // Tags every entry with file, the source being compiled
+    public JsonLinesSink(Path path, String file) throws IOException {
+        this(new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)), file, true);
+    }
+
+    public JsonLinesSink(Writer writer) {
+        this(new PrintWriter(writer), null, true);
+    }
+
+    private JsonLinesSink(PrintWriter writer, String file, boolean ownsWriter) {
+        this.writer = writer;
+        this.file = file;
+        this.ownsWriter = ownsWriter;
+    }
+
+    //F45
+    // Entries reported through the returned sink are tagged with file; closing it leaves this sink open.
+    // Lets one log serve a whole batch run from many threads.
+    public JsonLinesSink forFile(String file) {
+        return new JsonLinesSink(writer, file, false);
+    }
+
+    @Override
+    public void report(Diagnostic diagnostic) {
+        String entry = toJson(diagnostic, file);
+        synchronized (writer) {
+            writer.write(entry);
+            writer.write('\n');  // Always \n: the reader's offsets depend on it
+        }
+    }
+
+    // Field order is fixed, with file and line first, so the log is easy to grep too
+    static String toJson(Diagnostic diagnostic, String file) {
+        String message = diagnostic.getMessage();
+        StringBuilder sb = new StringBuilder(96 + message.length());
+        sb.append("{\"file\":").append(Json.quote(file));
+        sb.append(",\"line\":").append(diagnostic.line);
+        sb.append(",\"stage\":").append(Json.quote(diagnostic.stage));
+        sb.append(",\"code\":").append(Json.quote(diagnostic.code.name()));
+        sb.append(",\"message\":").append(Json.quote(message));
+        sb.append(",\"fix\":").append(Json.quote(diagnostic.getFix()));
+        sb.append(",\"timestamp\":").append(diagnostic.timestamp);
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public void flush() {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        if (ownsWriter) {
+            writer.close();
+        } else {
+            writer.flush();
+        }
+    }
+}
@@ -42,64 +42,101 @@ public class Lexer {
     //F2
     public static List<Token> tokenize(String inputCode, ErrorLogger logger) {
         List<Token> tokens = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+        List<Diagnostic> errors = new ArrayList<>();
         String[] lines = inputCode.split("\n");
         int lineNumber = 1;
+        InternPool pool = new InternPool();  // Token text shared across this compilation
     
         for (String line : lines) {
-            line = removeComments(line);
-            Matcher matcher = TOKEN_PATTERN.matcher(line);
-            int lastMatchEnd = 0;
+            tokenizeLine(line, lineNumber, tokens, errors, logger, pool);
+            lineNumber++;
+        }
     
-            while (matcher.find()) {
-                if (matcher.start() > lastMatchEnd) {
-                    String invalidToken = line.substring(lastMatchEnd, matcher.start()).trim();
-                    if (!invalidToken.isEmpty()) {
-                        tokens.add(new Token("INVALID", invalidToken, lineNumber));
-                        errors.add("Unrecognized token: " + invalidToken + " at line " + lineNumber);
-                    }
-                }
-            
-                if (matcher.group(1) != null) {  
-                    tokens.add(new Token("KEYWORD", matcher.group(1), lineNumber));
-                } else if (matcher.group(2) != null) {  
-                    tokens.add(new Token("IDENTIFIER", matcher.group(2), lineNumber));
-                } else if (matcher.group(3) != null) {  
-                    tokens.add(new Token("SYMBOL", matcher.group(3), lineNumber));
-                } else if (matcher.group(4) != null) {  
-                    tokens.add(new Token("NUMBER", matcher.group(4), lineNumber));
-                } else if (matcher.group(6) != null) {  
-                    tokens.add(handleString(matcher.group(6), lineNumber, logger));
+        logTokenErrors(errors, logger);
+        return tokens;
+    }
+
+    // Same as tokenize, but appends into caller-owned lists so a CompilerSession can reuse them
+    public static void tokenize(String inputCode, List<Token> tokens, List<Diagnostic> errors, ErrorLogger logger, CompileBudget budget) {
+        tokenize(inputCode, tokens, errors, logger, budget, new InternPool());
+    }
+
+    // Token text goes through the caller's pool, which the session clears between compilations
+    public static void tokenize(String inputCode, List<Token> tokens, List<Diagnostic> errors, ErrorLogger logger,
+                                CompileBudget budget, InternPool pool) {
+        int lineNumber = 1;
+        int start = 0;
+        try {
+            while (start < inputCode.length()) {
+                budget.check();
+                int end = inputCode.indexOf('\n', start);
+                if (end < 0) {
+                    end = inputCode.length();
                 }
-            
-                lastMatchEnd = matcher.end();
+                tokenizeLine(inputCode.substring(start, end), lineNumber, tokens, errors, logger, pool);
+                lineNumber++;
+                start = end + 1;
             }
-            
-    
-            if (lastMatchEnd < line.length()) {
-                String invalidToken = line.substring(lastMatchEnd).trim();
+        } finally {
+            logTokenErrors(errors, logger);  // A cancelled compile still reports what it found
+        }
+    }
+
+    // Appends the tokens of one source line; unrecognized text becomes INVALID tokens plus an entry in errors
+    public static void tokenizeLine(String line, int lineNumber, List<Token> tokens, List<Diagnostic> errors, ErrorLogger logger) {
+        tokenizeLine(line, lineNumber, tokens, errors, logger, new InternPool());
+    }
+
+    // Repeated keywords, names, symbols and numbers get the pool's String instead of a new substring
+    public static void tokenizeLine(String line, int lineNumber, List<Token> tokens, List<Diagnostic> errors, ErrorLogger logger,
+                                    InternPool pool) {
+        line = removeComments(line);
+        Matcher matcher = TOKEN_PATTERN.matcher(line);
+        int lastMatchEnd = 0;
+
+        while (matcher.find()) {
+            if (matcher.start() > lastMatchEnd) {
+                String invalidToken = line.substring(lastMatchEnd, matcher.start()).trim();
                 if (!invalidToken.isEmpty()) {
                     tokens.add(new Token("INVALID", invalidToken, lineNumber));
-                    errors.add("Unrecognized token: " + invalidToken + " at line " + lineNumber);
+                    errors.add(new Diagnostic(DiagnosticCode.UNRECOGNIZED_TOKEN, lineNumber, invalidToken, lineNumber));
                 }
             }
-    
-            lineNumber++;
+        
+            if (matcher.start(1) >= 0) {  
+                tokens.add(new Token("KEYWORD", pool.intern(line, matcher.start(1), matcher.end(1)), lineNumber));
+            } else if (matcher.start(2) >= 0) {  
+                tokens.add(new Token("IDENTIFIER", pool.intern(line, matcher.start(2), matcher.end(2)), lineNumber));
+            } else if (matcher.start(3) >= 0) {  
+                tokens.add(new Token("SYMBOL", pool.intern(line, matcher.start(3), matcher.end(3)), lineNumber));
+            } else if (matcher.start(4) >= 0) {  
+                tokens.add(new Token("NUMBER", pool.intern(line, matcher.start(4), matcher.end(4)), lineNumber));
+            } else if (matcher.group(6) != null) {  
+                tokens.add(handleString(matcher.group(6), lineNumber, logger));
+            }
+        
+            lastMatchEnd = matcher.end();
+        }
+        
+
+        if (lastMatchEnd < line.length()) {
+            String invalidToken = line.substring(lastMatchEnd).trim();
+            if (!invalidToken.isEmpty()) {
+                tokens.add(new Token("INVALID", invalidToken, lineNumber));
+                errors.add(new Diagnostic(DiagnosticCode.UNRECOGNIZED_TOKEN, lineNumber, invalidToken, lineNumber));
+            }
         }
-    
-        logTokenErrors(errors, logger);
-        return tokens;
     }
     //F27
     public static Token handleString(String rawString, int lineNumber, ErrorLogger logger) {
         if (rawString.length() < 2) { // Invalid string
-            logger.logError("Lexical Error: Invalid string at line " + lineNumber);
+            logger.log(DiagnosticCode.INVALID_STRING, lineNumber, lineNumber);
             return new Token("INVALID", rawString, lineNumber);
         }
 
         char quoteType = rawString.charAt(0); // Detect if it's a single or double quote
         if (rawString.charAt(rawString.length() - 1) != quoteType) { // Unclosed string
-            logger.logError("Lexical Error: Unclosed string at line " + lineNumber);
+            logger.log(DiagnosticCode.UNCLOSED_STRING, lineNumber, lineNumber);
             return new Token("INVALID", rawString, lineNumber);
         }
 
@@ -141,9 +178,9 @@ public class Lexer {
         return token.matches("[0-9]+(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
     }
     //F6
-    public static void logTokenErrors(List<String> errors, ErrorLogger logger) {
-        for (String error : errors) {
-            logger.logError("Lexical Error: " + error);
+    public static void logTokenErrors(List<Diagnostic> errors, ErrorLogger logger) {
+        for (Diagnostic error : errors) {
+            logger.log(error);
         }
     }
     //F7
@@ -156,16 +193,23 @@ public class Lexer {
     }
     //F9
     public static List<Token> recoverFromLexErrors(List<Token> tokens, ErrorLogger logger) {
-        List<Token> validTokens = new ArrayList<>();
-    
+        return recoverFromLexErrors(tokens, new ArrayList<>(), logger);
+    }
+
+    // Appends the valid tokens to validTokens and returns it
+    public static List<Token> recoverFromLexErrors(List<Token> tokens, List<Token> validTokens, ErrorLogger logger) {
         for (Token token : tokens) {
             if (token.type.equals("INVALID")) {
-                logger.logError("Recovered from lexical error: Removed invalid token '" + token.value + "' at line " + token.lineNumber);
+                TranspilerEvents.TokenDropped event = TranspilerEvents.beginTokenDrop();
+                logger.log(DiagnosticCode.INVALID_TOKEN_REMOVED, token.lineNumber, token.value, token.lineNumber);
+                TranspilerEvents.tokenDropped(event, token.lineNumber, token.value, "invalid token");
                 continue; // Skip adding invalid tokens
             }
     
             if (token.type.equals("IDENTIFIER") && token.value.matches("^[0-9].*")) {
-                logger.logError("Recovered from lexical error: Removed invalid identifier '" + token.value + "' at line " + token.lineNumber);
+                TranspilerEvents.TokenDropped event = TranspilerEvents.beginTokenDrop();
+                logger.log(DiagnosticCode.INVALID_IDENTIFIER_REMOVED, token.lineNumber, token.value, token.lineNumber);
+                TranspilerEvents.tokenDropped(event, token.lineNumber, token.value, "invalid identifier");
                 continue; // Skip invalid identifiers
             }
     
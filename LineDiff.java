@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+// Line-level difference between two versions of a text, found with Myers' O(ND) algorithm after trimming the
+// common head and tail. The UI applies it to the generated Java pane as document edits; the CLI prints it as a
+// unified diff. Lines keep their '\n', so a hunk maps directly to a character range of the old text.
+public class LineDiff {
+    // Past this many changed lines the middle is replaced as one hunk; the search would cost more than the swap
+    public static final int MAX_EDITS = 1_000;
+
+    // Lines [oldStart, oldStart + oldCount) of the old text become lines [newStart, newStart + newCount) of the new
+    public static class Hunk {
+        public final int oldStart, oldCount, newStart, newCount;
+
+        Hunk(int oldStart, int oldCount, int newStart, int newCount) {
+            this.oldStart = oldStart;
+            this.oldCount = oldCount;
+            this.newStart = newStart;
+            this.newCount = newCount;
+        }
+    }
+
+    private final String[] oldLines;
+    private final String[] newLines;
+    private final List<Hunk> hunks;
+
+    private LineDiff(String[] oldLines, String[] newLines, List<Hunk> hunks) {
+        this.oldLines = oldLines;
+        this.newLines = newLines;
+        this.hunks = Collections.unmodifiableList(hunks);
+    }
+
+    //F51
+    public static LineDiff of(String before, String after) {
+        String[] a = lines(before);
+        String[] b = lines(after);
+        int head = 0;
+        while (head < a.length && head < b.length && a[head].equals(b[head])) {
+            head++;
+        }
+        int tail = 0;
+        while (tail < a.length - head && tail < b.length - head
+                && a[a.length - 1 - tail].equals(b[b.length - 1 - tail])) {
+            tail++;
+        }
+        return new LineDiff(a, b, middle(a, b, head, a.length - tail, b.length - tail));
+    }
+
+    // Splits after every '\n'; a final line without one is kept as it is
+    static String[] lines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            lines.add(text.substring(start, end + 1));
+            start = end + 1;
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    // Hunks for a[from, aEnd) against b[from, bEnd); everything outside is known to match
+    private static List<Hunk> middle(String[] a, String[] b, int from, int aEnd, int bEnd) {
+        int n = aEnd - from;
+        int m = bEnd - from;
+        List<Hunk> hunks = new ArrayList<>();
+        if (n == 0 && m == 0) {
+            return hunks;
+        }
+        if (n == 0 || m == 0) {
+            hunks.add(new Hunk(from, n, from, m));
+            return hunks;
+        }
+
+        // Equal lines share an id, so the search compares ints instead of strings
+        Map<String, Integer> ids = new HashMap<>();
+        int[] x = new int[n];
+        int[] y = new int[m];
+        for (int i = 0; i < n; i++) {
+            x[i] = ids.computeIfAbsent(a[from + i], k -> ids.size());
+        }
+        for (int j = 0; j < m; j++) {
+            Integer id = ids.get(b[from + j]);
+            y[j] = (id == null) ? -1 : id;
+        }
+
+        boolean[] deleted = new boolean[n];
+        boolean[] inserted = new boolean[m];
+        if (!search(x, y, deleted, inserted)) {
+            hunks.add(new Hunk(from, n, from, m));
+            return hunks;
+        }
+        // Unmarked old and new lines pair up in order; each run of marked lines between them is one hunk
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && !deleted[i] && !inserted[j]) {
+                i++;
+                j++;
+                continue;
+            }
+            int oldStart = i;
+            int newStart = j;
+            while ((i < n && deleted[i]) || (j < m && inserted[j])) {
+                while (i < n && deleted[i]) {
+                    i++;
+                }
+                while (j < m && inserted[j]) {
+                    j++;
+                }
+            }
+            hunks.add(new Hunk(from + oldStart, i - oldStart, from + newStart, j - newStart));
+        }
+        return hunks;
+    }
+
+    // Myers' greedy search for a shortest edit script, marking the lines it deletes and inserts.
+    // False if it needs more than MAX_EDITS edits.
+    private static boolean search(int[] x, int[] y, boolean[] deleted, boolean[] inserted) {
+        int n = x.length;
+        int m = y.length;
+        int max = Math.min(n + m, MAX_EDITS);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];  // v[offset + k] is the furthest x reached on diagonal k
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            trace.add(Arrays.copyOfRange(v, offset - d - 1, offset + d + 2));  // Diagonals -d-1..d+1 before step d
+            for (int k = -d; k <= d; k += 2) {
+                int i = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1]       // Down: insert
+                        : v[offset + k - 1] + 1;  // Right: delete
+                int j = i - k;
+                while (i < n && j < m && x[i] == y[j]) {
+                    i++;
+                    j++;
+                }
+                v[offset + k] = i;
+                if (i >= n && j >= m) {
+                    backtrack(trace, d, n, m, deleted, inserted);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void backtrack(List<int[]> trace, int edits, int n, int m, boolean[] deleted, boolean[] inserted) {
+        int i = n;
+        int j = m;
+        for (int d = edits; d > 0; d--) {
+            int[] v = trace.get(d);
+            int base = d + 1;  // Index of diagonal 0 in this snapshot
+            int k = i - j;
+            int previousK = (k == -d || (k != d && v[base + k - 1] < v[base + k + 1])) ? k + 1 : k - 1;
+            int previousI = v[base + previousK];
+            int previousJ = previousI - previousK;
+            while (i > previousI && j > previousJ) {  // Matching lines after the edit
+                i--;
+                j--;
+            }
+            if (i == previousI) {
+                inserted[j - 1] = true;
+            } else {
+                deleted[i - 1] = true;
+            }
+            i = previousI;
+            j = previousJ;
+        }
+    }
+
+    public List<Hunk> hunks() {
+        return hunks;
+    }
+
+    public boolean isEmpty() {
+        return hunks.isEmpty();
+    }
+
+    // New lines carried over from the old text
+    public int unchangedLines() {
+        int unchanged = newLines.length;
+        for (Hunk hunk : hunks) {
+            unchanged -= hunk.newCount;
+        }
+        return unchanged;
+    }
+
+    // Old and new lines touched by the hunks
+    public int changedLines() {
+        int changed = 0;
+        for (Hunk hunk : hunks) {
+            changed += hunk.oldCount + hunk.newCount;
+        }
+        return changed;
+    }
+
+    // Turns a document holding the old text into the new one; later hunks go first so earlier offsets stay valid
+    public void applyTo(Document document) throws BadLocationException {
+        int[] offsets = new int[oldLines.length + 1];
+        for (int i = 0; i < oldLines.length; i++) {
+            offsets[i + 1] = offsets[i] + oldLines[i].length();
+        }
+        for (int h = hunks.size() - 1; h >= 0; h--) {
+            Hunk hunk = hunks.get(h);
+            int start = offsets[hunk.oldStart];
+            int length = offsets[hunk.oldStart + hunk.oldCount] - start;
+            if (length > 0) {
+                document.remove(start, length);
+            }
+            if (hunk.newCount > 0) {
+                StringBuilder text = new StringBuilder();
+                for (int j = hunk.newStart; j < hunk.newStart + hunk.newCount; j++) {
+                    text.append(newLines[j]);
+                }
+                document.insertString(start, text.toString(), null);
+            }
+        }
+    }
+
+    // Unified diff with the given lines of context; hunks closer than twice that are printed together
+    public String unified(String oldName, String newName, int context) {
+        StringBuilder sb = new StringBuilder();
+        if (hunks.isEmpty()) {
+            return "";
+        }
+        sb.append("--- ").append(oldName).append('\n');
+        sb.append("+++ ").append(newName).append('\n');
+        int h = 0;
+        while (h < hunks.size()) {
+            int last = h;
+            while (last + 1 < hunks.size()
+                    && hunks.get(last + 1).oldStart - (hunks.get(last).oldStart + hunks.get(last).oldCount) <= 2 * context) {
+                last++;
+            }
+            Hunk first = hunks.get(h);
+            Hunk end = hunks.get(last);
+            int oldFrom = Math.max(0, first.oldStart - context);
+            int oldTo = Math.min(oldLines.length, end.oldStart + end.oldCount + context);
+            int newFrom = first.newStart - (first.oldStart - oldFrom);
+            int newTo = end.newStart + end.newCount + (oldTo - end.oldStart - end.oldCount);
+            sb.append("@@ -").append(range(oldFrom, oldTo - oldFrom))
+              .append(" +").append(range(newFrom, newTo - newFrom)).append(" @@\n");
+            int i = oldFrom;
+            for (int g = h; g <= last; g++) {
+                Hunk hunk = hunks.get(g);
+                for (; i < hunk.oldStart; i++) {
+                    appendLine(sb, ' ', oldLines[i]);
+                }
+                for (int r = hunk.oldStart; r < hunk.oldStart + hunk.oldCount; r++) {
+                    appendLine(sb, '-', oldLines[r]);
+                }
+                for (int a = hunk.newStart; a < hunk.newStart + hunk.newCount; a++) {
+                    appendLine(sb, '+', newLines[a]);
+                }
+                i = hunk.oldStart + hunk.oldCount;
+            }
+            for (; i < oldTo; i++) {
+                appendLine(sb, ' ', oldLines[i]);
+            }
+            h = last + 1;
+        }
+        return sb.toString();
+    }
+
+    // "start,count" with 1-based lines; an empty range names the line before it, as diff -u does
+    private static String range(int start, int count) {
+        return ((count == 0) ? start : start + 1) + "," + count;
+    }
+
+    private static void appendLine(StringBuilder sb, char prefix, String line) {
+        sb.append(prefix).append(line);
+        if (!line.endsWith("\n")) {
+            sb.append("\n\\ No newline at end of file\n");
+        }
+    }
+
+    // Usage: java LineDiff <old file> <new file>; exits with 1 if they differ, like diff
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java LineDiff <old file> <new file>");
+            System.exit(2);
+        }
+        LineDiff diff = LineDiff.of(new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8),
+                new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8));
+        System.out.print(diff.unified(args[0], args[1], 3));
+        System.exit(diff.isEmpty() ? 0 : 1);
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Appends log entries to memory-mapped segment files <log>.1, <log>.2, ... that are preallocated to a fixed size.
+// A full segment is trimmed and the next one started; only the newest keepSegments stay on disk.
+// One instance per path is shared by everyone in the process who opens it, so concurrent writers never collide.
+public class MappedLogSink implements DiagnosticSink {
+    public static final long DEFAULT_SEGMENT_BYTES = 4L << 20;
+    public static final int DEFAULT_SEGMENTS = 4;
+
+    private static final Map<Path, MappedLogSink> OPEN = new HashMap<>();
+
+    private final Path base;
+    private final long segmentBytes;
+    private final int keepSegments;
+    private final Function<Diagnostic, String> format;
+    private int references = 1;
+    private long sequence;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean closed = false;  // Released by every holder, or a rotation failed
+
+    private MappedLogSink(Path base, long segmentBytes, int keepSegments, Function<Diagnostic, String> format) throws IOException {
+        this.base = base;
+        this.segmentBytes = Math.min(Math.max(segmentBytes, 1 << 12), Integer.MAX_VALUE);  // One mapping per segment
+        this.keepSegments = Math.max(1, keepSegments);
+        this.format = format;
+        this.sequence = Math.max(1, newestSegment());
+        openSegment(0);
+        deleteOldSegments();
+    }
+
+    // Entries in the error_log.txt format
+    public static MappedLogSink open(Path base, long segmentBytes, int keepSegments) throws IOException {
+        return open(base, segmentBytes, keepSegments, ErrorLogger.TextSink::format);
+    }
+
+    //F49
+    // Returns the sink already open for this path if there is one; its size and format win. Each open needs a close.
+    public static MappedLogSink open(Path base, long segmentBytes, int keepSegments, Function<Diagnostic, String> format)
+            throws IOException {
+        Path key = base.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            MappedLogSink sink = OPEN.get(key);
+            if (sink != null) {
+                synchronized (sink) {
+                    sink.references++;
+                }
+                return sink;
+            }
+            sink = new MappedLogSink(key, segmentBytes, keepSegments, format);
+            OPEN.put(key, sink);
+            return sink;
+        }
+    }
+
+    @Override
+    public void report(Diagnostic diagnostic) {
+        byte[] entry = format.apply(diagnostic).getBytes(StandardCharsets.UTF_8);  // Formatted outside the lock
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (buffer.remaining() < entry.length) {
+                    rotate(entry.length);
+                }
+                buffer.put(entry);
+            } catch (IOException e) {
+                System.err.println("Error rotating log " + segmentPath(sequence) + ": " + e.getMessage());
+                closed = true;  // Later entries are dropped rather than failing the compile
+            }
+        }
+    }
+
+    private void rotate(int needed) throws IOException {
+        closeSegment();
+        sequence++;
+        openSegment(needed);
+        deleteOldSegments();
+    }
+
+    // Maps the whole segment up front, which extends the file; entries left by an earlier run are kept
+    private void openSegment(int needed) throws IOException {
+        channel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long existing = channel.size();
+        long size = Math.max(Math.max(segmentBytes, existing), needed);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.position(end(buffer, (int) Math.min(existing, size)));
+        if (buffer.remaining() < needed) {
+            // The earlier run left too little room; start a fresh segment instead of overflowing
+            closeSegment();
+            sequence++;
+            openSegment(needed);
+        }
+    }
+
+    // Preallocated space is zero-filled and entries are text, so the data ends after the last non-zero byte
+    private static int end(MappedByteBuffer buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer.get(i) != 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Cuts the unused preallocated tail so readers see only entries
+    private void closeSegment() throws IOException {
+        buffer.force();
+        try {
+            channel.truncate(buffer.position());
+        } catch (IOException e) {
+            // Some platforms refuse to shrink a mapped file; readers then stop at the first zero byte
+        }
+        channel.close();
+    }
+
+    private void deleteOldSegments() {
+        for (long n = sequence - keepSegments; n >= 1; n--) {
+            try {
+                if (!Files.deleteIfExists(segmentPath(n))) {
+                    break;  // Older ones went in an earlier rotation
+                }
+            } catch (IOException e) {
+                // Still mapped somewhere; the next rotation tries again
+            }
+        }
+    }
+
+    private long newestSegment() throws IOException {
+        Path dir = (base.getParent() != null) ? base.getParent() : base.toAbsolutePath().getParent();
+        String prefix = base.getFileName() + ".";
+        long newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path file : files) {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit) && suffix.length() < 18) {
+                    newest = Math.max(newest, Long.parseLong(suffix));
+                }
+            }
+        }
+        return newest;
+    }
+
+    Path segmentPath(long n) {
+        return base.resolveSibling(base.getFileName() + "." + n);
+    }
+
+    // Mapped writes are already visible to other readers of the file; durability waits for close()
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        synchronized (OPEN) {
+            synchronized (this) {
+                if (--references > 0) {
+                    return;
+                }
+                OPEN.remove(base);
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    closeSegment();
+                } catch (IOException e) {
+                    System.err.println("Error closing log " + segmentPath(sequence) + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -4,94 +4,141 @@ import java.util.*;
 
 public class MyCompiler {
     public static void main(String[] args) {
+        boolean run = false;
+        boolean pipelined = false;
+        boolean asyncLog = false;
+        boolean diff = false;
+        String jsonLog = null;
+        int maxDiagnostics = -1;
+        long segmentBytes = 0;
+        int segments = MappedLogSink.DEFAULT_SEGMENTS;
+        CompilerMetrics metrics = CompilerMetrics.disabled();
+        ErrorLogger logger = null;
         try {
+            for (String arg : args) {
+                if (arg.equals("--run")) {
+                    run = true;
+                } else if (arg.equals("--metrics")) {
+                    metrics = new CompilerMetrics();
+                } else if (arg.equals("--pipelined")) {
+                    pipelined = true;
+                } else if (arg.equals("--diff")) {
+                    diff = true;
+                } else if (arg.equals("--async-log")) {
+                    asyncLog = true;
+                } else if (arg.startsWith("--json-log=")) {
+                    jsonLog = arg.substring("--json-log=".length());
+                } else if (arg.startsWith("--max-diagnostics=")) {
+                    maxDiagnostics = Integer.parseInt(arg.substring("--max-diagnostics=".length()));
+                } else if (arg.startsWith("--rotate-log=")) {
+                    // --rotate-log=<MB per segment>[,<segments kept>]
+                    String[] parts = arg.substring("--rotate-log=".length()).split(",");
+                    segmentBytes = Long.parseLong(parts[0]) << 20;
+                    if (parts.length > 1) {
+                        segments = Integer.parseInt(parts[1]);
+                    }
+                } else if (arg.equals("--no-optimize")) {
+                    Optimizer.enabled = false;
+                } else if (arg.equals("--buffered-output")) {
+                    CodeGenerator.bufferedOutput = true;
+                } else if (arg.startsWith("--flush-every=")) {
+                    CodeGenerator.bufferedOutput = true;
+                    CodeGenerator.flushThreshold = Integer.parseInt(arg.substring("--flush-every=".length()));
+                }
+            }
+
             // Check if input.py exists
             Path inputPath = Paths.get("input.py");
             if (!Files.exists(inputPath)) {
                 System.err.println("Error: input.py not found!");
                 return;
             }
-            ErrorLogger logger = new ErrorLogger("error_log.txt");
-
-            // Read input.py
-            String code = new String(Files.readAllBytes(inputPath));
-
-            // Step 1: Tokenization
-            List<Token> tokens = Lexer.tokenize(code, logger);
-
-            // Step 1.5: Recover from lexical errors
-            tokens = Lexer.recoverFromLexErrors(tokens, logger);
-
-            System.out.println("Tokens: " + tokens);
+            logger = (segmentBytes > 0) ? ErrorLogger.rotating("error_log.txt", segmentBytes, segments, asyncLog)
+                                        : new ErrorLogger("error_log.txt", asyncLog);
+            if (jsonLog != null) {
+                DiagnosticSink json = new JsonLinesSink(Paths.get(jsonLog), "input.py");
+                logger.addSink(asyncLog ? new AsyncSink(json) : json);
+            }
+            if (maxDiagnostics >= 0) {
+                logger.setAggregator(new DiagnosticAggregator(maxDiagnostics));
+            }
 
-            if (tokens.isEmpty()) {
-                System.err.println("Error: No tokens generated. Check input.py.");
+            // Lexer, parser and generator run concurrently; output.java is written as statements finish
+            if (pipelined) {
+                try (Reader in = Files.newBufferedReader(inputPath);
+                     Writer out = Files.newBufferedWriter(Paths.get("output.java"))) {
+                    PipelinedCompiler.transpile(in, out, logger);
+                } finally {
+                    logger.finishCompilation();  // The session path does this itself
+                }
+                System.out.println("Compilation successful! output.java generated.");
                 return;
             }
 
-            // Step 2: Build the Parse Tree
-            ParseTreeNode parseTree = Parser.buildParseTree(tokens, logger); // Pass the token list directly
-            System.out.println("\nParse Tree:\n" + parseTree); // Debugging Output
-
-            // Step 2.5: Recover from syntax errors
-            parseTree = Parser.recoverFromSyntaxErrors(parseTree);
-            System.out.println("\nParse Tree (After Recovery):\n" + parseTree);
-
-            // Step 3: Convert Parse Tree to AST
-            ASTNode ast = Parser.convertParseTreeToAST(parseTree);
-
-            if (ast == null) {
-                System.err.println("Parsing failed.");
-                return;
+            // Steps 1-4: tokenize, parse, optimize and generate; the session pools token text and AST leaves
+            // and finishes the logger's compilation even when a stage fails
+            String code = new String(Files.readAllBytes(inputPath));
+            String javaCode;
+            try (CompilerSession session = new CompilerSession(logger)) {
+                javaCode = session.compile(code, metrics);
             }
 
-            // Step 4: Code Generation
-            CodeGenerator.generateJavaCode(ast);
+            // Step 4.5: Show what changed since the last --diff run, then keep this output for the next one
+            if (diff) {
+                Path outputPath = Paths.get("output.java");
+                String previous = Files.exists(outputPath) ? new String(Files.readAllBytes(outputPath)) : "";
+                LineDiff changes = LineDiff.of(previous, javaCode);
+                System.out.print(changes.isEmpty() ? "output.java unchanged\n" : changes.unified("output.java", "output.java (new)", 3));
+                Files.write(outputPath, javaCode.getBytes());
+            }
 
             System.out.println("Compilation successful! output.java generated.");
+            if (metrics.isEnabled()) {
+                System.out.println(metrics.toJson());
+            }
+
+            // Step 5: Compile and run the generated program in this JVM
+            if (run) {
+                JavaRunner.run(javaCode);
+            }
         } catch (IOException e) {
             System.err.println("File error: " + e.getMessage());
+        } catch (CompilationException e) {
+            System.err.println(e.getMessage());
         } catch (Exception e) {
             System.err.println("Compilation failed: " + e.getMessage());
+        } finally {
+            if (logger != null) {
+                logger.close();  // With --async-log this drains the pending entries
+            }
         }
 
         
     }
-    public static void logSyntaxErrors(List<String> errors, ErrorLogger logger) {
-            if (!errors.isEmpty()) {
-                System.err.println("Syntax Errors:");
-                for (String error : errors) {
-                    logger.logError(error);
-                }
-            }
-        }
         //F1 readSoiurceFile and Compile 
         public static String readsourcefile(String pythonCode) {
-            try {
-                ErrorLogger logger = new ErrorLogger("error_log.txt");
-    
-                // Step 1: Tokenization
-                List<Token> tokens = Lexer.tokenize(pythonCode, logger);
-                tokens = Lexer.recoverFromLexErrors(tokens, logger);
-    
-                if (tokens.isEmpty()) {
-                    return "Error: No tokens generated. Check your input.";
-                }
-    
-                // Step 2: Parsing
-                ParseTreeNode parseTree = Parser.buildParseTree(tokens, logger);
-                parseTree = Parser.recoverFromSyntaxErrors(parseTree);
-    
-                // Step 3: Convert Parse Tree to AST
-                ASTNode ast = Parser.convertParseTreeToAST(parseTree);
-                if (ast == null) {
-                    return "Parsing failed. No AST generated.";
-                }
-    
-                // Step 4: Code Generation
-                return CodeGenerator.generateJavaCode(ast); // Now returns Java code as a String
-            } catch (Exception e) {
-                return "Compilation failed: " + e.getMessage();
+            // Closed every call; it used to stay open and leak a handle on error_log.txt per compile
+            try (CompilerSession session = new CompilerSession("error_log.txt")) {
+                return session.compileToResult(pythonCode).getOutputText();
+            }
+        }
+
+        // Runs the whole pipeline against the given logger, throwing instead of returning error text
+        public static String transpile(String pythonCode, ErrorLogger logger) throws Exception {
+            return transpile(pythonCode, logger, CompilerMetrics.disabled());
+        }
+
+        // One-off compile; callers compiling repeatedly should keep a CompilerSession instead
+        public static String transpile(String pythonCode, ErrorLogger logger, CompilerMetrics metrics) throws Exception {
+            return new CompilerSession(logger).compile(pythonCode, logger, metrics);
+        }
+
+        // A pipeline stage gave up; the message is shown to the user as-is
+        static class CompilationException extends Exception {
+            private static final long serialVersionUID = 1L;
+
+            CompilationException(String message) {
+                super(message);
             }
         }
-}
\ No newline at end of file
+}
@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Optimizer {
+    // Turned off by MyCompiler's --no-optimize flag
+    public static boolean enabled = true;
+
+    private final Map<String, Integer> assignmentCounts = new HashMap<>();
+    private boolean propagateConstants = true;
+    private final Map<String, ASTNode> constants = new HashMap<>();
+
+    //F29
+    public static ASTNode optimize(ASTNode ast) {
+        if (!enabled || ast == null) {
+            return ast;
+        }
+        Optimizer optimizer = new Optimizer();
+        optimizer.countAssignments(ast);
+        optimizer.optimizeBlock(ast);
+        return ast;
+    }
+
+    // Streaming use: statements arrive one at a time, so assignment counts are unknown and nothing is propagated
+    public static Optimizer forStatements() {
+        Optimizer optimizer = new Optimizer();
+        optimizer.propagateConstants = false;
+        return optimizer;
+    }
+
+    // Optimizes one top-level statement; it may vanish or be replaced by the body of a resolved branch
+    public List<ASTNode> optimizeTopLevel(ASTNode statement) {
+        List<ASTNode> statements = new ArrayList<>();
+        if (!enabled) {
+            statements.add(statement);
+            return statements;
+        }
+        optimizeStatement(statement, statements, true);
+        return statements;
+    }
+
+    // Variables written more than once (or bound by a loop/parameter) are never propagated
+    private void countAssignments(ASTNode node) {
+        if (node.type.equals("Assignment") || node.type.equals("Parameter") || node.type.equals("Variable")) {
+            assignmentCounts.merge(node.value, 1, Integer::sum);
+        }
+        for (ASTNode child : node.children) {
+            countAssignments(child);
+        }
+    }
+
+    // Optimizes the statements of a block in place, splicing in the bodies of resolved branches
+    private void optimizeBlock(ASTNode block) {
+        int first = firstStatementIndex(block);
+        List<ASTNode> statements = new ArrayList<>();
+
+        for (int i = 0; i < block.children.size(); i++) {
+            ASTNode child = block.children.get(i);
+            if (i < first) {
+                statements.add(child);  // Conditions, loop variables, ranges and parameters
+            } else {
+                optimizeStatement(child, statements, block.type.equals("Script"));
+            }
+        }
+        block.children = statements;
+    }
+
+    private int firstStatementIndex(ASTNode block) {
+        switch (block.type) {
+            case "ForLoop":
+                return 2;
+            case "WhileLoop":
+            case "IfStatement":
+            case "ElifStatement":
+                return 1;
+            case "Function":
+                int index = 0;
+                while (index < block.children.size() && block.children.get(index).type.equals("Parameter")) {
+                    index++;
+                }
+                return index;
+            default:
+                return 0;
+        }
+    }
+
+    private void optimizeStatement(ASTNode stmt, List<ASTNode> out, boolean topLevel) {
+        switch (stmt.type) {
+            case "Assignment":
+                if (!stmt.children.isEmpty()) {
+                    stmt.children.set(0, foldExpression(stmt.children.get(0)));
+                    recordConstant(stmt, topLevel);
+                }
+                out.add(stmt);
+                break;
+            case "Print":
+                for (int i = 0; i < stmt.children.size(); i++) {
+                    stmt.children.set(i, foldExpression(stmt.children.get(i)));
+                }
+                out.add(stmt);
+                break;
+            case "IfStatement":
+                optimizeIf(stmt, out);
+                break;
+            case "ForLoop":
+                optimizeForLoop(stmt, out);
+                break;
+            case "WhileLoop":
+                stmt.children.set(0, foldExpression(stmt.children.get(0)));
+                if (isFalse(stmt.children.get(0))) {
+                    return;  // ✅ Body can never run
+                }
+                optimizeBlock(stmt);
+                out.add(stmt);
+                break;
+            default:
+                optimizeBlock(stmt);
+                out.add(stmt);
+        }
+    }
+
+    private void recordConstant(ASTNode assignment, boolean topLevel) {
+        ASTNode value = assignment.children.get(0);
+        if (propagateConstants && topLevel && assignmentCounts.getOrDefault(assignment.value, 0) == 1 && isLiteral(value)) {
+            constants.put(assignment.value, value);
+        }
+    }
+
+    private void optimizeIf(ASTNode ifNode, List<ASTNode> out) {
+        List<ASTNode> branches = new ArrayList<>();
+        ASTNode elseNode = null;
+
+        // Flatten into (condition, body...) branches so if and elif are handled alike
+        ASTNode ifBranch = new ASTNode("ElifStatement", "elif");
+        ifBranch.addChild(ifNode.children.get(0));
+        for (int i = 1; i < ifNode.children.size(); i++) {
+            ASTNode child = ifNode.children.get(i);
+            if (child.type.equals("ElifStatement")) {
+                branches.add(child);
+            } else if (child.type.equals("ElseStatement")) {
+                elseNode = child;
+            } else {
+                ifBranch.addChild(child);
+            }
+        }
+        branches.add(0, ifBranch);
+
+        List<ASTNode> live = new ArrayList<>();
+        for (ASTNode branch : branches) {
+            branch.children.set(0, foldExpression(branch.children.get(0)));
+            ASTNode condition = branch.children.get(0);
+            if (isFalse(condition)) {
+                continue;  // ✅ Unreachable branch
+            }
+            if (isTrue(condition)) {
+                // Every later branch, including else, is unreachable
+                elseNode = new ASTNode("ElseStatement", "else");
+                elseNode.children.addAll(branch.children.subList(1, branch.children.size()));
+                break;
+            }
+            live.add(branch);
+        }
+
+        if (elseNode != null) {
+            optimizeBlock(elseNode);
+        }
+        if (live.isEmpty()) {
+            if (elseNode != null) {
+                out.addAll(elseNode.children);  // ✅ Only one branch left, emit its body inline
+            }
+            return;
+        }
+
+        ASTNode result = new ASTNode("IfStatement", "if");
+        ASTNode head = live.get(0);
+        optimizeBlock(head);
+        result.children.addAll(head.children);
+        for (int i = 1; i < live.size(); i++) {
+            optimizeBlock(live.get(i));
+            result.addChild(live.get(i));
+        }
+        if (elseNode != null) {
+            result.addChild(elseNode);
+        }
+        out.add(result);
+    }
+
+    private void optimizeForLoop(ASTNode forNode, List<ASTNode> out) {
+        if (forNode.children.size() >= 2) {
+            Integer start = 0, end = null;
+            List<ASTNode> bounds = forNode.children.get(1).children;
+            for (int i = 0; i < bounds.size(); i++) {
+                ASTNode bound = bounds.get(i);
+                ASTNode constant = constants.get(bound.value);
+                if (constant != null && isInteger(constant.value)) {
+                    bound = new ASTNode(bound.type, constant.value);  // ✅ Propagate constant range bounds
+                    bounds.set(i, bound);  // Replaced, not changed: the leaf may be shared
+                }
+                if (bound.type.equals("RangeStart")) {
+                    start = isInteger(bound.value) ? Integer.valueOf(bound.value) : null;
+                } else if (bound.type.equals("RangeEnd")) {
+                    end = isInteger(bound.value) ? Integer.valueOf(bound.value) : null;
+                }
+            }
+            // The generated loop tests `i < end`, so it never runs when start >= end
+            if (start != null && end != null && start >= end) {
+                return;
+            }
+        }
+        optimizeBlock(forNode);
+        out.add(forNode);
+    }
+
+    // Folds an expression bottom-up, replacing propagated variables and literal-only subtrees
+    private ASTNode foldExpression(ASTNode node) {
+        if (node.type.equals("Operand")) {
+            ASTNode constant = constants.get(node.value);
+            if (constant != null) {
+                return new ASTNode(constant.type.equals("StringLiteral") ? "StringLiteral" : "Value", constant.value);
+            }
+            return node;
+        }
+        if (!node.type.equals("Expression") || node.children.size() != 2) {
+            return node;
+        }
+
+        ASTNode left = foldExpression(node.children.get(0));
+        ASTNode right = foldExpression(node.children.get(1));
+        node.children.set(0, left);
+        node.children.set(1, right);
+
+        ASTNode folded = evaluate(node.value, left, right);
+        return (folded != null) ? folded : node;
+    }
+
+    // Folded numbers and booleans become Value nodes, which CodeGenerator types by their text like an assigned literal
+    private ASTNode evaluate(String operator, ASTNode left, ASTNode right) {
+        if (!isLiteral(left) || !isLiteral(right)) {
+            return null;
+        }
+        boolean leftString = left.type.equals("StringLiteral");
+        boolean rightString = right.type.equals("StringLiteral");
+
+        if (leftString || rightString) {
+            // Only concatenation is folded; Java compares String literals by reference
+            if (!operator.equals("+")) {
+                return null;
+            }
+            return new ASTNode("StringLiteral", javaString(left) + javaString(right));
+        }
+
+        if (isInteger(left.value) && isInteger(right.value)) {
+            long a = Long.parseLong(left.value);
+            long b = Long.parseLong(right.value);
+            if (operator.equals("+")) {
+                long sum = a + b;
+                return (sum == (int) sum) ? new ASTNode("Value", Long.toString(sum)) : null;
+            }
+            Boolean result = compare(operator, Long.compare(a, b));
+            return (result != null) ? new ASTNode("Value", result.toString()) : null;
+        }
+
+        double a = Double.parseDouble(left.value);
+        double b = Double.parseDouble(right.value);
+        if (operator.equals("+")) {
+            // Sums that print in exponent form would no longer read as a double literal
+            String sum = Double.toString(a + b);
+            return sum.matches("-?\\d+\\.\\d+") ? new ASTNode("Value", sum) : null;
+        }
+        Boolean result = compare(operator, Double.compare(a, b));
+        return (result != null) ? new ASTNode("Value", result.toString()) : null;
+    }
+
+    private Boolean compare(String operator, int order) {
+        switch (operator) {
+            case "<": return order < 0;
+            case "<=": return order <= 0;
+            case ">": return order > 0;
+            case ">=": return order >= 0;
+            case "==": return order == 0;
+            case "!=": return order != 0;
+            default: return null;
+        }
+    }
+
+    // Renders a literal the way Java's string concatenation would print it
+    private String javaString(ASTNode literal) {
+        if (literal.type.equals("StringLiteral")) {
+            return literal.value;
+        }
+        if (isInteger(literal.value)) {
+            return literal.value;
+        }
+        return Double.toString(Double.parseDouble(literal.value));
+    }
+
+    private boolean isLiteral(ASTNode node) {
+        if (node.type.equals("StringLiteral")) {
+            // Escapes would be re-emitted differently once concatenated
+            return !node.value.contains("\\") && !node.value.contains("\"");
+        }
+        if (!node.type.equals("Operand") && !node.type.equals("Value")) {
+            return false;
+        }
+        return isInteger(node.value) || node.value.matches("-?\\d+\\.\\d+");
+    }
+
+    private static boolean isInteger(String value) {
+        return value != null && value.matches("-?\\d+") && fitsInt(value);
+    }
+
+    private static boolean fitsInt(String value) {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean isTrue(ASTNode condition) {
+        return isConstant(condition) && condition.value.equals("true");
+    }
+
+    private boolean isFalse(ASTNode condition) {
+        return isConstant(condition) && condition.value.equals("false");
+    }
+
+    private static boolean isConstant(ASTNode node) {
+        return node.type.equals("Operand") || node.type.equals("Value");
+    }
+}
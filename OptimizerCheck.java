@@ -0,0 +1,111 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compiles each program with and without the Optimizer, runs both through JavaRunner and compares what they print.
+// The optimized output must compile whenever the unoptimized one does, and print the same thing.
+public class OptimizerCheck {
+    // Folds whose results are reassigned or printed; each one once generated Java that javac rejected
+    private static final String[] SAMPLES = {
+        "y = 2 + 3\ny = y + 1\nprint(y)\n",
+        "d = 1.5 + 2.25\nd = d + 0.5\nprint(d)\n",
+        "s = \"a\" + \"b\"\ns = s + \"c\"\nprint(s)\n",
+        "n = 4\nm = n + 6\nm = m + n\nprint(m)\n",
+        "big = 2147483647 + 1\nprint(big)\n",
+        "e = 99999999.5 + 99999999.5\ne = e + 1.0\nprint(e)\n",
+        "print(1 + 2)\nprint(\"n=\" + 3)\nprint(0.5 + 1)\n",
+        "x = 7\nif x < 8:\n    print(x)\n",
+        "if 2 > 5:\n    print(\"no\")\n",
+        "for i in range(0, 3):\n    print(i)\n",
+    };
+
+    // Returned by check() when the unoptimized program does not run either, so there is nothing to compare against
+    public static final String SKIPPED = "unoptimized output does not run";
+
+    //F54
+    // Null if both print the same, SKIPPED, or a description of what went wrong
+    public static String check(String pythonCode) {
+        String plain = compile(pythonCode, false);
+        String optimized = compile(pythonCode, true);
+        String expected;
+        try {
+            expected = run(plain);
+        } catch (RuntimeException e) {
+            return SKIPPED;
+        }
+        String actual;
+        try {
+            actual = run(optimized);
+        } catch (RuntimeException e) {
+            return "optimized output fails: " + e.getMessage() + "\n" + optimized;
+        }
+        if (!expected.equals(actual)) {
+            return "printed\n" + actual + "instead of\n" + expected + "\n" + optimized;
+        }
+        return null;
+    }
+
+    private static String compile(String pythonCode, boolean optimize) {
+        boolean enabled = Optimizer.enabled;
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));  // Parser debug output
+        Optimizer.enabled = optimize;
+        try (CompilerSession session = new CompilerSession()) {
+            return session.compileToResult(pythonCode).getOutputText();
+        } finally {
+            Optimizer.enabled = enabled;
+            System.setOut(out);
+        }
+    }
+
+    // Everything the program prints to System.out
+    private static String run(String javaCode) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            JavaRunner.run(javaCode);
+        } finally {
+            System.setOut(out);
+        }
+        return new String(printed.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Usage: java OptimizerCheck [file.py ...]; without files the built-in samples are checked. Exits with 1 on a mismatch
+    public static void main(String[] args) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<String> programs = new ArrayList<>();
+        if (args.length == 0) {
+            for (int i = 0; i < SAMPLES.length; i++) {
+                names.add("sample " + (i + 1));
+                programs.add(SAMPLES[i]);
+            }
+        } else {
+            for (String arg : args) {
+                names.add(arg);
+                programs.add(new String(Files.readAllBytes(Paths.get(arg)), StandardCharsets.UTF_8));
+            }
+        }
+
+        int failed = 0;
+        int skipped = 0;
+        for (int i = 0; i < programs.size(); i++) {
+            String problem = check(programs.get(i));
+            if (problem == SKIPPED) {
+                skipped++;
+                System.out.println("SKIP " + names.get(i) + ": " + SKIPPED);
+            } else if (problem != null) {
+                failed++;
+                System.out.println("FAIL " + names.get(i) + ": " + problem);
+            }
+        }
+        System.out.println((programs.size() - failed - skipped) + "/" + (programs.size() - skipped)
+                + " programs print the same with and without the optimizer" + ((skipped > 0) ? ", " + skipped + " skipped" : ""));
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
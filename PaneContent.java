@@ -0,0 +1,159 @@
+import java.awt.FontMetrics;
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+
+// Text for one of CompilerUI's panes, prepared off the EDT so showing it is a single swap.
+// Small text becomes a ready-made document for the text area, or the line edits that turn the text already shown
+// into it; large text is shown in a list that only renders the visible lines, since a text area lays out and
+// measures every line it holds.
+public class PaneContent {
+    public static final int WINDOWED_LINES = 5_000;
+
+    // Lines of one string, cut out only when the list paints them
+    static class LineModel extends AbstractListModel<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int[] starts;  // starts[i] is where line i begins; one extra entry past the end
+        private final int lines;
+        final int longestLine;
+
+        LineModel(String text) {
+            this.text = text;
+            int[] found = new int[1024];
+            int count = 0;
+            int longest = 0;
+            int start = 0;
+            while (true) {
+                if (count + 1 >= found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count++] = start;
+                int end = text.indexOf('\n', start);
+                if (end < 0) {
+                    longest = Math.max(longest, text.length() - start);
+                    found[count] = text.length() + 1;
+                    break;
+                }
+                longest = Math.max(longest, end - start);
+                start = end + 1;
+            }
+            if (count > 1 && found[count - 1] == text.length()) {
+                count--;  // Text ending in '\n' has no extra empty line; found[count] is already its end
+            }
+            this.starts = found;
+            this.lines = count;
+            this.longestLine = longest;
+        }
+
+        @Override
+        public int getSize() {
+            return lines;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return text.substring(starts[index], starts[index + 1] - 1);
+        }
+    }
+
+    private final String text;
+    private final PlainDocument document;  // null when windowed or edited in place
+    private final LineModel lines;         // null when not windowed
+    private final String base;             // Text the edits apply to; null unless edited in place
+    private final LineDiff edits;
+
+    private PaneContent(String text, PlainDocument document, LineModel lines, String base, LineDiff edits) {
+        this.text = text;
+        this.document = document;
+        this.lines = lines;
+        this.base = base;
+        this.edits = edits;
+    }
+
+    //F50
+    // Safe off the EDT: the document is not attached to any component yet
+    public static PaneContent of(String text) {
+        LineModel lines = new LineModel(text);
+        if (lines.getSize() > WINDOWED_LINES) {
+            return new PaneContent(text, null, lines, null, null);
+        }
+        return new PaneContent(text, document(text), null, null, null);
+    }
+
+    // Like of(text), but if the area already shows the text shown, only the lines that changed are replaced.
+    // That keeps the scroll position and lets the area re-lay out just those lines.
+    public static PaneContent of(String text, String shown) {
+        if (shown == null) {
+            return of(text);
+        }
+        LineModel lines = new LineModel(text);
+        if (lines.getSize() > WINDOWED_LINES) {
+            return new PaneContent(text, null, lines, null, null);
+        }
+        LineDiff diff = LineDiff.of(shown, text);
+        if (diff.unchangedLines() == 0 && !diff.isEmpty()) {
+            return new PaneContent(text, document(text), null, null, null);  // Nothing kept; a fresh document is cheaper
+        }
+        return new PaneContent(text, null, null, shown, diff);
+    }
+
+    private static PlainDocument document(String text) {
+        PlainDocument document = new PlainDocument();
+        try {
+            document.insertString(0, text, null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);  // Offset 0 of an empty document always exists
+        }
+        return document;
+    }
+
+    public boolean isWindowed() {
+        return lines != null;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // EDT only: puts the area or the list into the scroll pane, whichever suits this content
+    public void show(JScrollPane pane, JTextArea area, JList<String> list) {
+        if (edits != null) {
+            // Edit in place only if the area still holds base; otherwise swap the whole text in
+            if (pane.getViewport().getView() == area && area.getClientProperty(PaneContent.class) == base) {
+                try {
+                    edits.applyTo(area.getDocument());
+                    area.putClientProperty(PaneContent.class, text);
+                    return;
+                } catch (BadLocationException e) {
+                    // Fall through to a full swap
+                }
+            }
+            area.setText(text);
+            area.putClientProperty(PaneContent.class, text);
+            area.setCaretPosition(0);
+            pane.setViewportView(area);
+            return;
+        }
+        if (lines == null) {
+            area.putClientProperty(PaneContent.class, text);
+            area.setDocument(document);
+            area.setCaretPosition(0);
+            pane.setViewportView(area);
+            return;
+        }
+        // Fixed cell sizes let the list skip measuring every line; the panes use a monospaced font
+        FontMetrics metrics = list.getFontMetrics(list.getFont());
+        list.setFixedCellHeight(metrics.getHeight());
+        list.setFixedCellWidth(metrics.charWidth('m') * (lines.longestLine + 1));
+        area.putClientProperty(PaneContent.class, null);
+        list.setModel(lines);
+        pane.setViewportView(list);
+        list.ensureIndexIsVisible(0);
+    }
+}
@@ -1,9 +1,11 @@
 import java.util.*;
+import java.util.function.Consumer;
 
 class ParseTreeNode {
     String type;
     String value;
     List<ParseTreeNode> children;
+    int lineNumber = -1;  // Source line, where the parser knows it
 
     public ParseTreeNode(String type, String value) {
         this.type = type;
@@ -41,9 +43,14 @@ class ASTNode {
     List<ASTNode> children;
 
     public ASTNode(String type, String value) {
+        this(type, value, new ArrayList<>());
+    }
+
+    // InternPool's shared leaves pass an immutable empty list
+    ASTNode(String type, String value, List<ASTNode> children) {
         this.type = type;
         this.value = value;
-        this.children = new ArrayList<>();
+        this.children = children;
     }
 
     public void addChild(ASTNode child) {
@@ -60,16 +67,39 @@ public class Parser {
     private int index = 0;
     private ErrorLogger errorLogger;
     private List<String> syntaxErrors = new ArrayList<>();
+    private Consumer<ParseTreeNode> statementSink;
+    private CompileBudget budget = CompileBudget.unlimited();
 
     public Parser(List<Token> tokens, ErrorLogger errorLogger) {
         this.tokens = tokens;
         this.errorLogger = errorLogger;
     }
+
+    // True if there is a token at position i; a TokenStream blocks until the lexer gets that far
+    private boolean has(int i) {
+        if (tokens instanceof TokenStream) {
+            return ((TokenStream) tokens).has(i);
+        }
+        return i < tokens.size();
+    }
+
+    // Parses a script, handing each top-level statement to the sink as soon as it is complete
+    public static void parseStatements(List<Token> tokens, ErrorLogger errorLogger, Consumer<ParseTreeNode> sink) {
+        Parser parser = new Parser(tokens, errorLogger);
+        parser.statementSink = sink;
+        parser.parseScript();
+    }
     //F10
     public static ParseTreeNode buildParseTree(List<Token> tokens, ErrorLogger errorLogger) {
+        return buildParseTree(tokens, errorLogger, CompileBudget.unlimited());
+    }
+
+    // Checks the budget once per statement, so recovery loops on malformed input can be stopped
+    public static ParseTreeNode buildParseTree(List<Token> tokens, ErrorLogger errorLogger, CompileBudget budget) {
         Parser parser = new Parser(tokens, errorLogger);
+        parser.budget = budget;
         ParseTreeNode tree;
-        if (parser.index < tokens.size() && tokens.get(parser.index).type.equals("KEYWORD_DEF")) {
+        if (parser.has(parser.index) && tokens.get(parser.index).type.equals("KEYWORD_DEF")) {
             tree = parser.parseFunctionTree();
         } else {
             tree = parser.parseScript();
@@ -82,14 +112,21 @@ public class Parser {
 
     private ParseTreeNode parseScript() {
         ParseTreeNode scriptNode = new ParseTreeNode("Script", "script");
-        while (index < tokens.size()) {
+        while (has(index)) {
+            budget.check();
             Token currentToken = tokens.get(index);
     
             // Check if it's a function definition
+            ParseTreeNode statement;
             if (currentToken.type.equals("KEYWORD_DEF")) {
-                scriptNode.addChild(parseFunctionTree());
+                statement = parseFunctionTree();
+            } else {
+                statement = parseStatement();
+            }
+            if (statementSink != null) {
+                statementSink.accept(statement);  // Streaming: don't keep finished statements around
             } else {
-                scriptNode.addChild(parseStatement());
+                scriptNode.addChild(statement);
             }
         }
         return scriptNode;
@@ -107,17 +144,19 @@ public class Parser {
         match("SYMBOL", "(");  // Consume '('
     
         List<String> parameters = new ArrayList<>();
-        while (index < tokens.size() && !tokens.get(index).value.equals(")")) {
+        while (has(index) && !tokens.get(index).value.equals(")")) {
             Token param = match("IDENTIFIER");
             parameters.add(param.value);
-            if (index < tokens.size() && tokens.get(index).value.equals(",")) {
+            if (has(index) && tokens.get(index).value.equals(",")) {
                 match("SYMBOL", ",");  // Consume ','
             }
         }
     
         ParseTreeNode funcNode = new ParseTreeNode("Function", funcName.value);
+        funcNode.lineNumber = funcName.lineNumber;
         match("SYMBOL", ")");  // Consume ')'
-        match("SYMBOL", ":");  // Consume ':'
+        Token colon = match("SYMBOL", ":");  // Consume ':'
+        boolean colonMatched = colon != null && colon.value.equals(":");
     
         // Add function parameters as children
         for (String param : parameters) {
@@ -125,35 +164,42 @@ public class Parser {
         }
     
         // ✅ Fix: Ensure that function body is properly consumed
-        while (index < tokens.size() && !tokens.get(index).value.equals("def")) {
+        while (has(index) && !tokens.get(index).value.equals("def")) {
             try {
                 ParseTreeNode stmt = parseStatement();
                 if (stmt != null) {
                     funcNode.addChild(stmt);
                 }
+            } catch (CompileBudget.Exceeded e) {
+                throw e;
             } catch (RuntimeException e) {
                 System.err.println("Error parsing function body: " + e.getMessage());
     
                 // ✅ Fix: Skip tokens to prevent infinite loops
-                while (index < tokens.size() && !tokens.get(index).value.equals("def") 
+                while (has(index) && !tokens.get(index).value.equals("def") 
                        && !tokens.get(index).value.equals("\n")) {
                     index++;  // Move past the problematic tokens
                 }
     
-                if (index < tokens.size()) {
+                if (has(index)) {
                     index++;  // Move to next token after newline
                 }
             }
         }
     
+        // Recorded where recoverFromSyntaxErrors would put it, so that only a missing ':' is inserted there
+        if (colonMatched) {
+            funcNode.addChild(new ParseTreeNode("Symbol", ":"));
+        }
         System.out.println("Function parsed successfully.");
         return funcNode;
     }
 
     private ParseTreeNode parseStatement() {
-        if (index >= tokens.size()) {
+        if (!has(index)) {
             return null; // End of file
         }
+        budget.check();
     
         Token currentToken = tokens.get(index);
         System.out.println("Current token: " + currentToken);
@@ -177,14 +223,18 @@ public class Parser {
             }
     
             // Unexpected token - likely a syntax error
+        } catch (CompileBudget.Exceeded e) {
+            throw e;
         } catch (RuntimeException e) {
             System.err.println("Error parsing statement: " + e.getMessage());
     
-            // Skip tokens until the next valid statement (newline or semicolon)
-            while (index < tokens.size() && !tokens.get(index).value.equals("\n") && !tokens.get(index).value.equals(";")) {
+            // Skip tokens until the next valid statement (next line or semicolon); the lexer emits no newline tokens
+            int failedLine = has(index) ? tokens.get(index).lineNumber : -1;
+            while (has(index) && tokens.get(index).lineNumber == failedLine
+                   && !tokens.get(index).value.equals("\n") && !tokens.get(index).value.equals(";")) {
                 index++;
             }
-            if (index < tokens.size() && (tokens.get(index).value.equals("\n") || tokens.get(index).value.equals(";"))) {
+            if (has(index) && (tokens.get(index).value.equals("\n") || tokens.get(index).value.equals(";"))) {
                 index++;
             }
             return new ParseTreeNode("Error", "Error");
@@ -207,7 +257,7 @@ public class Parser {
         // ✅ Allow IDENTIFIER (variable) or NUMBER inside range()
         Token start = null, end = null, step = null;
     
-        if (index < tokens.size() && 
+        if (has(index) && 
             (tokens.get(index).type.equals("NUMBER") || tokens.get(index).type.equals("IDENTIFIER"))) {
             start = match(tokens.get(index).type);
         } else {
@@ -215,13 +265,13 @@ public class Parser {
         }
     
         // ✅ Check for an end value
-        if (index < tokens.size() && tokens.get(index).value.equals(",")) {
+        if (has(index) && tokens.get(index).value.equals(",")) {
             match("SYMBOL", ",");
-            if (index < tokens.size() && 
+            if (has(index) && 
                 (tokens.get(index).type.equals("NUMBER") || tokens.get(index).type.equals("IDENTIFIER"))) {
                 end = match(tokens.get(index).type);
             } else {
-                errorLogger.logError("Syntax Error: Invalid end value in range()");
+                errorLogger.log(DiagnosticCode.INVALID_RANGE_END, currentLine());
             }
         } else {
             end = start;  // If only one value is provided, it’s the end, and start should be 0
@@ -229,13 +279,13 @@ public class Parser {
         }
     
         // ✅ Check for a step value
-        if (index < tokens.size() && tokens.get(index).value.equals(",")) {
+        if (has(index) && tokens.get(index).value.equals(",")) {
             match("SYMBOL", ",");
-            if (index < tokens.size() && 
+            if (has(index) && 
                 (tokens.get(index).type.equals("NUMBER") || tokens.get(index).type.equals("IDENTIFIER"))) {
                 step = match(tokens.get(index).type);
             } else {
-                errorLogger.logError("Syntax Error: Invalid step value in range()");
+                errorLogger.log(DiagnosticCode.INVALID_RANGE_STEP, currentLine());
             }
         }
     
@@ -252,11 +302,11 @@ public class Parser {
         forNode.addChild(rangeNode);  // ✅ Attach range info to loop
     
         // ✅ Parse loop body
-        while (index < tokens.size()) {
+        while (has(index)) {
             Token currentToken = tokens.get(index);
             if (currentToken.value.equals("\n")) {
                 index++;
-                if (index >= tokens.size()) break;
+                if (!has(index)) break;
                 currentToken = tokens.get(index);
             }
     
@@ -283,47 +333,48 @@ public class Parser {
         ParseTreeNode whileNode = new ParseTreeNode("WhileLoop", "while");
         whileNode.addChild(condition);
 
-        while (index < tokens.size() && !tokens.get(index).value.equals("for") && !tokens.get(index).value.equals("while") && !tokens.get(index).value.equals("if")) {
+        while (has(index) && !tokens.get(index).value.equals("for") && !tokens.get(index).value.equals("while") && !tokens.get(index).value.equals("if")) {
             whileNode.addChild(parseStatement());
         }
         return whileNode;
     }
 
     private ParseTreeNode parsePrintTree() {
+        int line = tokens.get(index).lineNumber;
         match("KEYWORD", "print");
         match("SYMBOL", "(");
 
         ParseTreeNode printNode = new ParseTreeNode("Print", "print");
-        if (index < tokens.size()) {
+        printNode.lineNumber = line;
+        if (has(index)) {
             printNode.addChild(parseExpressionTree()); // ✅ Parse full expressions, not just one token
         }
-        if (index < tokens.size() && tokens.get(index).type.equals("STRING")) {
+        if (has(index) && tokens.get(index).type.equals("STRING")) {
             printNode.addChild(new ParseTreeNode("StringLiteral", tokens.get(index).value));
             match("STRING");
-        } else if (index < tokens.size() && tokens.get(index).type.equals("IDENTIFIER")) {
-            String error = "Syntax Error: Missing ')' in print statement at line " + tokens.get(index - 1).lineNumber;
-            errorLogger.logError(error);
-            System.out.println(suggestCorrections(error, tokens.get(index - 1).lineNumber));
+        } else if (has(index) && tokens.get(index).type.equals("IDENTIFIER")) {
+            int errorLine = tokens.get(index - 1).lineNumber;
+            errorLogger.log(DiagnosticCode.MISSING_PRINT_PAREN, errorLine, errorLine);
             printNode.addChild(new ParseTreeNode("VariableReference", tokens.get(index).value));
             match("IDENTIFIER");
         }
 
-        if (index < tokens.size() && tokens.get(index).value.equals(")")) {
+        // A missing ')' is left for recoverFromSyntaxErrors to insert and report
+        if (has(index) && tokens.get(index).value.equals(")")) {
             match("SYMBOL", ")");
-        } else {
-            System.out.println("Recovered from missing ')'. Added closing parenthesis.");
+            printNode.addChild(new ParseTreeNode("Symbol", ")"));
         }
         return printNode;
     }
     private ParseTreeNode parseListLiteral() {
         match("SYMBOL", "[");
         ParseTreeNode listNode = new ParseTreeNode("List", "list");
-        while (index < tokens.size() && !tokens.get(index).value.equals("]")) {
+        while (has(index) && !tokens.get(index).value.equals("]")) {
             if (tokens.get(index).type.equals("NUMBER") || tokens.get(index).type.equals("STRING") || tokens.get(index).type.equals("IDENTIFIER")) {
                 listNode.addChild(new ParseTreeNode("Value", tokens.get(index).value));
                 match(tokens.get(index).type);
             }
-            if (index < tokens.size() && tokens.get(index).value.equals(",")) {
+            if (has(index) && tokens.get(index).value.equals(",")) {
                 match("SYMBOL", ",");
             }
         }
@@ -339,14 +390,17 @@ public class Parser {
         
         declaredVariables.add(varName.value);
 
-        if (index >= tokens.size()) {
+        if (!has(index)) {
             System.out.println("Recovered from missing value in assignment. Assigned 'None'.");
             return new ParseTreeNode("Assignment", varName.value);
         }
     
         ParseTreeNode valueNode;
     
-        if (tokens.get(index).type.equals("STRING")) { 
+        if (has(index + 1) && tokens.get(index + 1).value.equals("+")) {
+            // ✅ Handle concatenation and addition, e.g. `s = s + x`
+            valueNode = parseExpressionTree();
+        } else if (tokens.get(index).type.equals("STRING")) { 
             // ✅ Handle string literals correctly
             Token stringToken = match("STRING");
             valueNode = new ParseTreeNode("StringLiteral", stringToken.value);
@@ -357,7 +411,7 @@ public class Parser {
             // ✅ Handle negative numbers correctly
             match("SYMBOL", "-");  // Consume the '-' symbol
             
-            if (index < tokens.size() && tokens.get(index).type.equals("NUMBER")) {
+            if (has(index) && tokens.get(index).type.equals("NUMBER")) {
                 Token numberToken = match("NUMBER");
                 valueNode = new ParseTreeNode("Value", "-" + numberToken.value);
             } else {
@@ -387,7 +441,7 @@ public class Parser {
         ifNode.addChild(conditionNode);
     
         // ✅ Parse if-block body
-        while (index < tokens.size()) {
+        while (has(index)) {
             Token currentToken = tokens.get(index);
     
             // ✅ Stop parsing if we hit elif or else (they are not part of this block)
@@ -400,7 +454,7 @@ public class Parser {
         }
     
         // ✅ Handle elif cases
-        while (index < tokens.size() && tokens.get(index).value.equals("elif")) {
+        while (has(index) && tokens.get(index).value.equals("elif")) {
             match("KEYWORD", "elif");
             ParseTreeNode elifCondition = parseExpressionTree();
             match("SYMBOL", ":");
@@ -408,7 +462,7 @@ public class Parser {
             elifNode.addChild(elifCondition);
     
             // ✅ Parse elif-block body correctly
-            while (index < tokens.size()) {
+            while (has(index)) {
                 Token currentToken = tokens.get(index);
     
                 // ✅ Stop parsing elif block if we hit another elif or else
@@ -424,13 +478,13 @@ public class Parser {
         }
     
         // ✅ Handle else case
-        if (index < tokens.size() && tokens.get(index).value.equals("else")) {
+        if (has(index) && tokens.get(index).value.equals("else")) {
             match("KEYWORD", "else");
             match("SYMBOL", ":");
             ParseTreeNode elseNode = new ParseTreeNode("ElseStatement", "else");
     
             // ✅ Parse else-block body correctly
-            while (index < tokens.size()) {
+            while (has(index)) {
                 Token currentToken = tokens.get(index);
     
                 // ✅ Stop parsing if we hit a new function or loop declaration
@@ -461,10 +515,26 @@ public class Parser {
         // ✅ Handle variables or numbers
         else if (tokens.get(index).type.equals("IDENTIFIER") || tokens.get(index).type.equals("NUMBER")) {
             String varName = tokens.get(index).value;
-            if (!declaredVariables.contains(varName)) {
-                String suggestion = resolveUndefinedVariable(varName);
-                String err= "⚠️ Warning: Undefined variable '" + varName + "'. Did you mean '" + suggestion + "'?";
-                errorLogger.logSemanticError(err);
+            // Numbers are literals, not names to look up
+            if (tokens.get(index).type.equals("IDENTIFIER") && !declaredVariables.contains(varName)) {
+                int line = tokens.get(index).lineNumber;
+                TranspilerEvents.UndefinedVariable event = new TranspilerEvents.UndefinedVariable();
+                // In an error storm most warnings are only counted, so skip the search over every declared name
+                if (!event.isEnabled() && errorLogger.isSuppressed(DiagnosticCode.UNDEFINED_VARIABLE, line)) {
+                    errorLogger.log(DiagnosticCode.UNDEFINED_VARIABLE, line, varName, null);
+                } else {
+                    event.begin();
+                    String suggestion = resolveUndefinedVariable(varName);
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.line = line;
+                        event.variable = varName;
+                        event.suggestion = suggestion;
+                        event.candidates = declaredVariables.size();
+                        event.commit();
+                    }
+                    errorLogger.log(DiagnosticCode.UNDEFINED_VARIABLE, line, varName, suggestion);
+                }
             }
             leftOperand = new ParseTreeNode("Operand", tokens.get(index).value);
             match(tokens.get(index).type);
@@ -474,7 +544,7 @@ public class Parser {
         }
     
         // ✅ Check for operators (comparison or arithmetic)
-        while (index < tokens.size() && tokens.get(index).type.equals("SYMBOL")) {
+        while (has(index) && tokens.get(index).type.equals("SYMBOL")) {
             String operator = tokens.get(index).value;
     
             // ✅ Check if the operator is a valid comparison operator
@@ -501,7 +571,8 @@ public class Parser {
                 match("SYMBOL"); 
     
                 if (tokens.get(index).type.equals("STRING") || tokens.get(index).type.equals("IDENTIFIER") || tokens.get(index).type.equals("NUMBER")) {
-                    ParseTreeNode rightOperand = new ParseTreeNode("Operand", tokens.get(index).value);
+                    String operandType = tokens.get(index).type.equals("STRING") ? "StringLiteral" : "Operand";
+                    ParseTreeNode rightOperand = new ParseTreeNode(operandType, tokens.get(index).value);
                     match(tokens.get(index).type);
     
                     ParseTreeNode operatorNode = new ParseTreeNode("Expression", operator);
@@ -558,8 +629,16 @@ public class Parser {
         return dp[s1.length()][s2.length()];
     }
 
+    // Line of the token being parsed, or of the last one at end of input
+    private int currentLine() {
+        if (has(index)) {
+            return tokens.get(index).lineNumber;
+        }
+        return (index > 0) ? tokens.get(index - 1).lineNumber : -1;
+    }
+
     private Token match(String expectedType, String... expectedValues) {
-        if (index < tokens.size()) {
+        if (has(index)) {
             Token currentToken = tokens.get(index);
             System.out.println("Parsing Token: " + currentToken);
     
@@ -568,23 +647,17 @@ public class Parser {
                     index++;
                     return currentToken;
                 } else {
-                    String error = "Syntax Error: Expected " + Arrays.toString(expectedValues) + ", but found " + currentToken.value;
-                    errorLogger.logError(error);
-                    System.out.println(suggestCorrections(error, currentToken.lineNumber));
+                    errorLogger.log(DiagnosticCode.UNEXPECTED_VALUE, currentToken.lineNumber, expectedValues, currentToken.value);
                     // Do not increment the index here
                     return currentToken;
                 }
             } else {
-                String error = "Syntax Error: Expected " + expectedType + ", but found " + currentToken.type + " (" + currentToken.value + ")";
-                errorLogger.logError(error);
-                System.out.println(suggestCorrections(error, currentToken.lineNumber));
+                errorLogger.log(DiagnosticCode.UNEXPECTED_TYPE, currentToken.lineNumber, expectedType, currentToken.type, currentToken.value);
                 // Do not increment the index here
                 return currentToken;
             }
         }
-        String error = "Syntax Error: Unexpected end of tokens. Expected " + expectedType;
-        errorLogger.logError(error);
-        System.out.println(suggestCorrections(error, -1));
+        errorLogger.log(DiagnosticCode.UNEXPECTED_END, -1, (Object) expectedType);
         return null;
     }
     //F11
@@ -596,6 +669,7 @@ public class Parser {
             ParseTreeNode node = queue.poll();
 
             if (node.type.equals("Function")) {
+                TranspilerEvents.SymbolInserted event = TranspilerEvents.beginSymbolInsert();
                 boolean colonFound = false;
                 for (ParseTreeNode child : node.children) {
                     if (child.type.equals("Symbol") && child.value.equals(":")) {
@@ -606,10 +680,12 @@ public class Parser {
                 if (!colonFound) {
                     System.out.println("Recovered from missing ':'. Added ':' to function definition.");
                     node.children.add(new ParseTreeNode("Symbol", ":"));
+                    TranspilerEvents.symbolInserted(event, node.lineNumber, ":", "Function");
                 }
             }
 
             if (node.type.equals("Print")) {
+                TranspilerEvents.SymbolInserted event = TranspilerEvents.beginSymbolInsert();
                 boolean closingParenFound = false;
                 for (ParseTreeNode child : node.children) {
                     if (child.type.equals("Symbol") && child.value.equals(")")) {
@@ -620,6 +696,7 @@ public class Parser {
                 if (!closingParenFound) {
                     System.out.println("Recovered from missing ')'. Added closing parenthesis.");
                     node.children.add(new ParseTreeNode("Symbol", ")"));
+                    TranspilerEvents.symbolInserted(event, node.lineNumber, ")", "Print");
                 }
             }
             queue.addAll(node.children);
@@ -628,48 +705,56 @@ public class Parser {
     }
     //F12
     public static ASTNode convertParseTreeToAST(ParseTreeNode root) {
+        return convertParseTreeToAST(root, new InternPool());
+    }
+
+    // Leaves with the same type and value come back as one shared node from the pool
+    public static ASTNode convertParseTreeToAST(ParseTreeNode root, InternPool pool) {
         if (root == null) {
             return null;
         }
-        ASTNode astRoot = new ASTNode(root.type, root.value);
+        ASTNode astRoot;
 
         if (root.type.equals("ForLoop")) {
             ASTNode forNode = new ASTNode("ForLoop", "for");
             for (ParseTreeNode child : root.children) {
-                forNode.addChild(convertParseTreeToAST(child));
+                forNode.addChild(convertParseTreeToAST(child, pool));
             }
             astRoot = forNode;
         } else if (root.type.equals("WhileLoop")) {
             ASTNode whileNode = new ASTNode("WhileLoop", "while");
             for (ParseTreeNode child : root.children) {
-                whileNode.addChild(convertParseTreeToAST(child));
+                whileNode.addChild(convertParseTreeToAST(child, pool));
             }
             astRoot = whileNode;
         } else if (root.type.equals("IfStatement")) {
             ASTNode ifNode = new ASTNode("IfStatement", "if");
-            ifNode.addChild(convertParseTreeToAST(root.children.get(0)));
+            ifNode.addChild(convertParseTreeToAST(root.children.get(0), pool));
             for (int i = 1; i < root.children.size(); i++) {
-                ifNode.addChild(convertParseTreeToAST(root.children.get(i)));
+                ifNode.addChild(convertParseTreeToAST(root.children.get(i), pool));
             }
             astRoot = ifNode;
         } else if (root.type.equals("Operator")) {
             ASTNode operatorNode = new ASTNode("Comparison", root.value);
-            operatorNode.addChild(convertParseTreeToAST(root.children.get(0)));
-            operatorNode.addChild(convertParseTreeToAST(root.children.get(1)));
+            operatorNode.addChild(convertParseTreeToAST(root.children.get(0), pool));
+            operatorNode.addChild(convertParseTreeToAST(root.children.get(1), pool));
             astRoot = operatorNode;
         } else if (root.type.equals("StringLiteral") || root.type.equals("Operand") || root.type.equals("Value") || root.type.equals("Variable") || root.type.equals("RangeEnd")) {
-            astRoot = new ASTNode(root.type, root.value);
+            astRoot = pool.leaf(root.type, root.value);
         } else if (root.type.equals("Print")) {
             ASTNode printNode = new ASTNode(root.type, root.value);
             for (ParseTreeNode child : root.children) {
                 if (!child.type.equals("Symbol")) {
-                    printNode.addChild(convertParseTreeToAST(child));
+                    printNode.addChild(convertParseTreeToAST(child, pool));
                 }
             }
             astRoot = printNode;
+        } else if (root.children.isEmpty()) {
+            astRoot = pool.leaf(root.type, root.value);
         } else {
+            astRoot = new ASTNode(root.type, root.value);
             for (ParseTreeNode child : root.children) {
-                ASTNode astChild = convertParseTreeToAST(child);
+                ASTNode astChild = convertParseTreeToAST(child, pool);
                 if (astChild != null) {
                     astRoot.addChild(astChild);
                 }
@@ -704,25 +789,9 @@ public class Parser {
         return true;
     }
     //F14
-    public static String suggestCorrections(String error, int lineNumber) {
-        if (error.contains("Unexpected token KEYWORD_DEF")) {
-            return "Missing ':' at line " + lineNumber;
-        }
-        if (error.contains("Unexpected token return")) {
-            return "Missing ':' at line " + (lineNumber - 1);
-        }
-        if (error.contains("Unexpected token for")) {
-            return "Missing ':' at line " + lineNumber;
-        }
-        if (error.contains("Unexpected token if")) {
-            return "Missing ':' at line " + lineNumber;
-        }
-        if (error.contains("Unexpected token print")) {
-            return "Missing '(' at line " + lineNumber;
-        }
-        if (error.contains("Unmatched parentheses")) {
-            return "Missing ')' at line " + lineNumber;
-        }
+    // Fix of the parser's syntax errors, built only when a sink asks the Diagnostic for it. The keyword cases
+    // of the old substring table matched no message the parser produces, so every code gets the generic text.
+    public static String suggestCorrections(DiagnosticCode code, int lineNumber) {
         return "Syntax Error at line " + lineNumber;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Running totals of CompilerMetrics across compilations, for long-running processes
+public class PipelineStats implements PipelineStatsMXBean {
+    public static final PipelineStats INSTANCE = new PipelineStats();
+
+    private long compilations = 0;
+    private final Map<String, Long> micros = new LinkedHashMap<>();
+    private final Map<String, Long> allocatedBytes = new LinkedHashMap<>();
+    private final Map<String, Long> diagnostics = new LinkedHashMap<>();
+    private String lastCompilation = "{}";
+
+    //F38
+    public static synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("transpiler:type=PipelineStats");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register pipeline stats MBean: " + e.getMessage());
+        }
+    }
+
+    public synchronized void record(CompilerMetrics metrics) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        compilations++;
+        for (CompilerMetrics.Stage stage : metrics.getStages()) {
+            micros.merge(stage.name, stage.wallNanos / 1000, Long::sum);
+            if (stage.allocatedBytes >= 0) {
+                allocatedBytes.merge(stage.name, stage.allocatedBytes, Long::sum);
+            }
+            diagnostics.merge(stage.name, stage.diagnostics, Long::sum);
+        }
+        lastCompilation = metrics.toJson();
+    }
+
+    @Override
+    public synchronized long getCompilations() {
+        return compilations;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getTotalMicrosByStage() {
+        return new LinkedHashMap<>(micros);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getAllocatedBytesByStage() {
+        return new LinkedHashMap<>(allocatedBytes);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getDiagnosticsByStage() {
+        return new LinkedHashMap<>(diagnostics);
+    }
+
+    @Override
+    public synchronized String getLastCompilation() {
+        return lastCompilation;
+    }
+
+    @Override
+    public synchronized void reset() {
+        compilations = 0;
+        micros.clear();
+        allocatedBytes.clear();
+        diagnostics.clear();
+        lastCompilation = "{}";
+    }
+}
@@ -0,0 +1,16 @@
+import java.util.Map;
+
+// JMX view of PipelineStats, registered as transpiler:type=PipelineStats
+public interface PipelineStatsMXBean {
+    long getCompilations();
+
+    Map<String, Long> getTotalMicrosByStage();
+
+    Map<String, Long> getAllocatedBytesByStage();
+
+    Map<String, Long> getDiagnosticsByStage();
+
+    String getLastCompilation();
+
+    void reset();
+}
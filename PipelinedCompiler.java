@@ -0,0 +1,207 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Bounded token window shared by the lexer thread (producer) and the parser thread (consumer)
+class TokenStream extends AbstractList<Token> {
+    // The parser looks back at most one token, e.g. tokens.get(index - 1) for error line numbers
+    private static final int LOOKBEHIND = 16;
+
+    private final Token[] buffer;
+    private int added = 0;
+    private int highestRequested = 0;
+    private boolean closed = false;
+
+    TokenStream(int capacity) {
+        this.buffer = new Token[capacity + LOOKBEHIND];
+    }
+
+    synchronized void put(Token token) throws InterruptedException {
+        while (added - Math.max(0, highestRequested - LOOKBEHIND) >= buffer.length) {
+            wait();  // ✅ Parser is too far behind, keep memory bounded
+        }
+        buffer[added % buffer.length] = token;
+        added++;
+        notifyAll();
+    }
+
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    // Blocks until token i exists or the lexer is done; an interrupted parser sees the end of input
+    synchronized boolean has(int i) {
+        highestRequested = Math.max(highestRequested, i);
+        notifyAll();
+        while (i >= added && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return i < added;
+    }
+
+    @Override
+    public synchronized Token get(int i) {
+        if (!has(i)) {
+            throw new IndexOutOfBoundsException("No token at " + i);
+        }
+        if (i < added - buffer.length) {
+            throw new IndexOutOfBoundsException("Token " + i + " already left the window");
+        }
+        return buffer[i % buffer.length];
+    }
+
+    // Only known once the lexer has finished
+    @Override
+    public synchronized int size() {
+        while (!closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return added;
+    }
+}
+
+// Runs lexer, parser and generator on separate threads so output streams while input is still being read
+public class PipelinedCompiler {
+    private static final int TOKEN_WINDOW = 4096;
+    private static final int STATEMENT_QUEUE = 64;
+    // Marks the end of the statement queue
+    private static final ParseTreeNode END = new ParseTreeNode("End", "end");
+
+    //F36
+    public static void transpile(Reader input, Writer output, ErrorLogger logger) throws Exception {
+        TokenStream tokens = new TokenStream(TOKEN_WINDOW);
+        BlockingQueue<ParseTreeNode> statements = new ArrayBlockingQueue<>(STATEMENT_QUEUE);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread lexer = new Thread(() -> {
+            try {
+                lex(input, tokens, logger);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                tokens.close();
+            }
+        }, "transpiler-lexer");
+
+        Thread parser = new Thread(() -> {
+            try {
+                Parser.parseStatements(tokens, logger, statement -> {
+                    try {
+                        statements.put(statement);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                putEnd(statements);
+            }
+        }, "transpiler-parser");
+
+        lexer.setDaemon(true);
+        parser.setDaemon(true);
+        lexer.start();
+        parser.start();
+        try {
+            generate(statements, output);
+        } finally {
+            // Unblocks both stages if generation failed part way
+            lexer.interrupt();
+            parser.interrupt();
+            lexer.join();
+            parser.join();
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof Exception) {
+            throw (Exception) t;
+        } else if (t != null) {
+            throw new RuntimeException("Pipeline stage failed: " + t, t);
+        }
+    }
+
+    // Step 1 per line: tokenize, then drop invalid tokens as Lexer.recoverFromLexErrors would
+    private static void lex(Reader input, TokenStream tokens, ErrorLogger logger) throws IOException, InterruptedException {
+        BufferedReader reader = (input instanceof BufferedReader) ? (BufferedReader) input : new BufferedReader(input);
+        List<Token> lineTokens = new ArrayList<>();
+        List<Diagnostic> errors = new ArrayList<>();
+        InternPool pool = new InternPool();
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineTokens.clear();
+            errors.clear();
+            Lexer.tokenizeLine(line, lineNumber, lineTokens, errors, logger, pool);
+            Lexer.logTokenErrors(errors, logger);
+            for (Token token : Lexer.recoverFromLexErrors(lineTokens, logger)) {
+                tokens.put(token);
+            }
+            lineNumber++;
+        }
+    }
+
+    // Steps 2.5-4 per top-level statement, on the calling thread
+    private static void generate(BlockingQueue<ParseTreeNode> statements, Writer output) throws Exception {
+        CodeGenerator generator = new CodeGenerator();
+        Optimizer optimizer = Optimizer.forStatements();
+        StringBuilder javaCode = new StringBuilder();
+        InternPool pool = new InternPool();  // AST leaves shared across statements
+        boolean started = false;
+
+        ParseTreeNode statement;
+        while ((statement = statements.take()) != END) {
+            if (!started) {
+                generator.begin(javaCode);
+                started = true;
+            }
+            Parser.detectUnmatchedBraces(statement);
+            ASTNode ast = Parser.convertParseTreeToAST(Parser.recoverFromSyntaxErrors(statement), pool);
+            if (ast != null) {
+                for (ASTNode optimized : optimizer.optimizeTopLevel(ast)) {
+                    generator.translateStatement(optimized, javaCode);
+                }
+            }
+            output.append(javaCode);
+            output.flush();
+            javaCode.setLength(0);
+        }
+
+        if (!started) {
+            throw new MyCompiler.CompilationException("Error: No tokens generated. Check your input.");
+        }
+        generator.end(javaCode);
+        output.append(javaCode);
+        output.flush();
+    }
+
+    private static void putEnd(BlockingQueue<ParseTreeNode> statements) {
+        while (true) {
+            try {
+                statements.put(END);
+                return;
+            } catch (InterruptedException e) {
+                // The generator may still be draining; the end marker must get through
+                statements.poll();
+            }
+        }
+    }
+}
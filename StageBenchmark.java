@@ -0,0 +1,394 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+// Throughput and allocation of each pipeline stage across input sizes and error densities
+//
+// Run with: java StageBenchmark [stage|all] [sizes] [densities]
+//   e.g.    java StageBenchmark all 100,1000,5000 0,0.05,0.2
+//      or:  java StageBenchmark scaling [base] [doublings] [density]   (exit code 1 if growth is not ~linear)
+//      or:  java StageBenchmark budget [budget file]                    (exit code 1 if a stage allocates over budget)
+//      or:  java StageBenchmark heap [statements] [identifiers]         (heap held with and without InternPool)
+public class StageBenchmark {
+    static final String[] STAGES = {
+        "tokenize", "recoverFromLexErrors", "buildParseTree", "convertParseTreeToAST", "generateJavaCode", "readsourcefile"
+    };
+
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+    // Timing is noisier than allocation counts, so it gets more headroom above linear
+    private static final double MAX_TIME_EXPONENT = 1.25;
+    private static final double MAX_ALLOC_EXPONENT = 1.10;
+
+    // Stages held to an allocation budget, with the unit of work their bytes are divided by
+    static final String[][] BUDGETED_STAGES = {
+        {"tokenize", "token"}, {"buildParseTree", "node"}, {"convertParseTreeToAST", "node"}, {"generateJavaCode", "output byte"}
+    };
+    static final String DEFAULT_BUDGET_FILE = "allocation-budget.properties";
+
+    // Results are folded in here so the JIT cannot treat the measured work as dead code
+    private static volatile int sink;
+
+    static class Result {
+        final String stage;
+        final int statements;
+        final double errorDensity;
+        final int sourceBytes;
+        final long operations;
+        final long nanos;
+        final long allocatedBytes;  // -1 when the JVM cannot measure it
+
+        Result(String stage, int statements, double errorDensity, int sourceBytes, long operations, long nanos, long allocatedBytes) {
+            this.stage = stage;
+            this.statements = statements;
+            this.errorDensity = errorDensity;
+            this.sourceBytes = sourceBytes;
+            this.operations = operations;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        double opsPerSecond() {
+            return operations * 1e9 / nanos;
+        }
+
+        long bytesPerOp() {
+            return (allocatedBytes < 0) ? -1 : allocatedBytes / operations;
+        }
+    }
+
+    //F40
+    public static Result measure(String stage, int statements, double errorDensity) throws Exception {
+        String source = corpus(statements, errorDensity, 42);
+        return measure(stage, statements, errorDensity, source.length(), operation(stage, source));
+    }
+
+    // One run of the named stage on the standard corpus. The JMH benchmarks in src/jmh call this through
+    // reflection, since their package cannot name default-package classes, so both harnesses time the same work.
+    public static Callable<Object> operation(String stage, int statements, double errorDensity) throws Exception {
+        return operation(stage, corpus(statements, errorDensity, 42));
+    }
+
+    // Inputs for each stage are produced once by the stages before it, so only the named stage is timed
+    static Callable<Object> operation(String stage, String source) throws Exception {
+        ErrorLogger logger = new ErrorLogger(Writer.nullWriter());
+
+        List<Token> tokens = Lexer.tokenize(source, logger);
+        List<Token> recovered = Lexer.recoverFromLexErrors(tokens, logger);
+        ParseTreeNode tree = Parser.buildParseTree(recovered, logger);
+        ASTNode ast = Optimizer.optimize(Parser.convertParseTreeToAST(tree));
+
+        switch (stage) {
+            case "tokenize": return () -> Lexer.tokenize(source, logger);
+            case "recoverFromLexErrors": return () -> Lexer.recoverFromLexErrors(tokens, logger);
+            case "buildParseTree": return () -> Parser.buildParseTree(recovered, logger);
+            case "convertParseTreeToAST": return () -> Parser.convertParseTreeToAST(tree);
+            case "generateJavaCode": return () -> CodeGenerator.generateJavaCode(ast);
+            case "readsourcefile": return () -> MyCompiler.readsourcefile(source);
+            default: throw new IllegalArgumentException("Unknown stage: " + stage);
+        }
+    }
+
+    private static Result measure(String stage, int statements, double errorDensity, int sourceBytes, Callable<Object> operation) throws Exception {
+        long deadline = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < deadline) {
+            sink += operation.call().hashCode();
+        }
+
+        long operations = 0;
+        long startBytes = CompilerMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        deadline = start + MEASURE_NANOS;
+        long now;
+        do {
+            sink += operation.call().hashCode();
+            operations++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long endBytes = CompilerMetrics.allocatedBytes();
+
+        return new Result(stage, statements, errorDensity, sourceBytes, operations, now - start,
+                (startBytes < 0 || endBytes < 0) ? -1 : endBytes - startBytes);
+    }
+
+    // Doubles the input size from base and checks that the fitted growth exponent of time and allocation stays near 1
+    public static boolean checkScaling(int base, int doublings, double errorDensity, PrintStream out) throws Exception {
+        ErrorLogger logger = new ErrorLogger(Writer.nullWriter());
+        List<Result> results = new ArrayList<>();
+        out.printf("%-8s %12s %14s %10s %10s%n", "stmts", "ms/op", "alloc B/op", "time x", "alloc x");
+        for (int i = 0; i <= doublings; i++) {
+            int statements = base << i;
+            String source = corpus(statements, errorDensity, 42);
+            Result result = measure("transpile", statements, errorDensity, source.length(),
+                    () -> MyCompiler.transpile(source, logger));
+            Result previous = results.isEmpty() ? null : results.get(results.size() - 1);
+            out.printf(Locale.ROOT, "%-8d %12.3f %14d %10s %10s%n", statements, nanosPerOp(result) / 1e6, result.bytesPerOp(),
+                    (previous == null) ? "" : String.format(Locale.ROOT, "%.2f", nanosPerOp(result) / nanosPerOp(previous)),
+                    (previous == null) ? "" : String.format(Locale.ROOT, "%.2f", (double) result.bytesPerOp() / previous.bytesPerOp()));
+            results.add(result);
+        }
+
+        Result first = results.get(0);
+        Result last = results.get(results.size() - 1);
+        double timeExponent = Math.log(nanosPerOp(last) / nanosPerOp(first)) / Math.log(1 << doublings);
+        double allocExponent = Math.log((double) last.bytesPerOp() / first.bytesPerOp()) / Math.log(1 << doublings);
+        boolean linear = timeExponent <= MAX_TIME_EXPONENT && (first.bytesPerOp() < 0 || allocExponent <= MAX_ALLOC_EXPONENT);
+        out.printf(Locale.ROOT, "growth exponent: time %.2f (max %.2f), allocation %.2f (max %.2f) -> %s%n",
+                timeExponent, MAX_TIME_EXPONENT, allocExponent, MAX_ALLOC_EXPONENT, linear ? "OK" : "FAILED");
+        return linear;
+    }
+
+    //F52
+    // Measures bytes allocated per token, parse tree node, AST node and output byte on the budget file's workload;
+    // false if any stage is over its budget
+    public static boolean checkBudgets(Properties budgets, PrintStream out) throws Exception {
+        int statements = Integer.parseInt(budgets.getProperty("statements", "2000"));
+        double errorDensity = Double.parseDouble(budgets.getProperty("errorDensity", "0.05"));
+
+        // Units per operation; the same corpus and stage inputs that measure() builds
+        String source = corpus(statements, errorDensity, 42);
+        ErrorLogger logger = new ErrorLogger(Writer.nullWriter());
+        List<Token> tokens = Lexer.tokenize(source, logger);
+        ParseTreeNode tree = Parser.buildParseTree(Lexer.recoverFromLexErrors(tokens, logger), logger);
+        ASTNode ast = Parser.convertParseTreeToAST(tree);
+        long astNodes = CompilerMetrics.countNodes(ast);  // Counted before the optimizer rewrites it
+        long[] units = {tokens.size(), CompilerMetrics.countNodes(tree), astNodes,
+                CodeGenerator.generateJavaCode(Optimizer.optimize(ast)).length()};
+
+        boolean ok = true;
+        out.printf("%-22s %-12s %12s %12s  %s%n", "stage", "unit", "B/unit", "budget", "status");
+        for (int i = 0; i < BUDGETED_STAGES.length; i++) {
+            String stage = BUDGETED_STAGES[i][0];
+            String budget = budgets.getProperty(stage);
+            long perOp = measure(stage, statements, errorDensity).bytesPerOp();
+            double perUnit = (double) perOp / Math.max(1, units[i]);
+            String status;
+            if (perOp < 0) {
+                status = "n/a (allocation not measurable)";
+            } else if (budget == null) {
+                status = "no budget";
+            } else if (perUnit > Double.parseDouble(budget)) {
+                status = "OVER BUDGET";
+                ok = false;
+            } else {
+                status = "OK";
+            }
+            out.printf(Locale.ROOT, "%-22s %-12s %12s %12s  %s%n", stage, BUDGETED_STAGES[i][1],
+                    (perOp < 0) ? "n/a" : String.format(Locale.ROOT, "%.1f", perUnit), (budget == null) ? "-" : budget, status);
+        }
+        return ok;
+    }
+
+    // Heap held by one script's tokens, parse tree and AST, with InternPool off and on
+    public static void reportHeap(int statements, int identifiers, PrintStream out) {
+        String source = CorpusGenerator.generate(statements, 2, identifiers, 0, 42);
+        long[] plain = footprint(source, false);
+        long[] pooled = footprint(source, true);
+        String[] parts = {"tokens", "parse tree", "AST", "total"};
+        out.printf("%d statements, %d identifiers, %d KB of source%n", statements, identifiers, source.length() / 1024);
+        out.printf("%-12s %14s %14s %10s%n", "", "unpooled KB", "pooled KB", "saved");
+        for (int i = 0; i < parts.length; i++) {
+            out.printf(Locale.ROOT, "%-12s %14d %14d %9.1f%%%n", parts[i], plain[i] / 1024, pooled[i] / 1024,
+                    (plain[i] == 0) ? 0.0 : 100.0 * (plain[i] - pooled[i]) / plain[i]);
+        }
+    }
+
+    // Bytes of the distinct objects each structure adds; what the tokens already hold, such as the token text
+    // the parse tree points to, is not counted again. The pool itself is left out, as it is cleared once the
+    // compilation ends. Summing object sizes instead of sampling the heap gives the same figures on every run.
+    private static long[] footprint(String source, boolean pooled) {
+        boolean wasEnabled = InternPool.enabled;
+        InternPool.enabled = pooled;
+        try {
+            ErrorLogger logger = new ErrorLogger(Writer.nullWriter());
+            InternPool pool = new InternPool();
+            List<Token> tokens = new ArrayList<>();
+            Lexer.tokenize(source, tokens, new ArrayList<>(), logger, CompileBudget.unlimited(), pool);
+            ParseTreeNode tree = Parser.buildParseTree(Lexer.recoverFromLexErrors(tokens, logger), logger);
+            ASTNode ast = Parser.convertParseTreeToAST(tree, pool);
+
+            Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            long tokenBytes = listSize(tokens, seen);
+            for (Token token : tokens) {
+                tokenBytes += seen.add(token) ? objectSize(3) + stringSize(token.value, seen) : 0;
+            }
+            long treeBytes = treeSize(tree, seen);
+            long astBytes = astSize(ast, seen);
+            return new long[] {tokenBytes, treeBytes, astBytes, tokenBytes + treeBytes + astBytes};
+        } finally {
+            InternPool.enabled = wasEnabled;
+        }
+    }
+
+    private static long treeSize(ParseTreeNode node, Set<Object> seen) {
+        if (node == null || !seen.add(node)) {
+            return 0;
+        }
+        long bytes = objectSize(4) + stringSize(node.value, seen) + listSize(node.children, seen);
+        for (ParseTreeNode child : node.children) {
+            bytes += treeSize(child, seen);
+        }
+        return bytes;
+    }
+
+    private static long astSize(ASTNode node, Set<Object> seen) {
+        if (node == null || !seen.add(node)) {
+            return 0;  // A shared leaf costs its references only, already counted in the parents' lists
+        }
+        long bytes = objectSize(3) + stringSize(node.value, seen) + listSize(node.children, seen);
+        for (ASTNode child : node.children) {
+            bytes += astSize(child, seen);
+        }
+        return bytes;
+    }
+
+    // 64-bit HotSpot with compressed references: 12-byte header, 4 bytes per field, sizes rounded up to 8
+    private static long objectSize(int fields) {
+        return align(12 + 4L * fields);
+    }
+
+    private static long stringSize(String s, Set<Object> seen) {
+        if (s == null || !seen.add(s)) {
+            return 0;
+        }
+        boolean latin1 = s.chars().allMatch(c -> c < 256);
+        return objectSize(3) + align(16 + (long) s.length() * (latin1 ? 1 : 2));
+    }
+
+    // ArrayList with its backing array, taken as full; a list that never had elements shares an empty array
+    private static long listSize(List<?> list, Set<Object> seen) {
+        if (!seen.add(list)) {
+            return 0;
+        }
+        return objectSize(3) + (list.isEmpty() ? 0 : align(16 + 4L * list.size()));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static Properties loadBudgets(String file) throws IOException {
+        Properties budgets = new Properties();
+        try (Reader in = Files.newBufferedReader(Paths.get(file))) {
+            budgets.load(in);
+        }
+        return budgets;
+    }
+
+    private static double nanosPerOp(Result result) {
+        return (double) result.nanos / result.operations;
+    }
+
+    static String corpus(int statements, double errorDensity, long seed) {
+        return CorpusGenerator.generate(statements, 2, 50, errorDensity, seed);
+    }
+
+    static void printHeader(PrintStream out) {
+        out.printf("%-22s %7s %7s %12s %10s %14s %10s%n",
+                "stage", "stmts", "errors", "ops/s", "KB/s", "alloc B/op", "alloc MB/s");
+    }
+
+    static void print(Result result, PrintStream out) {
+        long perOp = result.bytesPerOp();
+        out.printf(Locale.ROOT, "%-22s %7d %7.2f %12.1f %10.1f %14s %10s%n",
+                result.stage, result.statements, result.errorDensity, result.opsPerSecond(),
+                result.opsPerSecond() * result.sourceBytes / 1024.0,
+                (perOp < 0) ? "n/a" : Long.toString(perOp),
+                (perOp < 0) ? "n/a" : String.format(Locale.ROOT, "%.1f", result.allocatedBytes * 1e9 / result.nanos / (1 << 20)));
+    }
+
+    private static int[] parseSizes(String list) {
+        String[] parts = list.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    private static double[] parseDensities(String list) {
+        String[] parts = list.split(",");
+        double[] densities = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            densities[i] = Double.parseDouble(parts[i].trim());
+        }
+        return densities;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String stage = (args.length > 0) ? args[0] : "all";
+        List<String> stages = new ArrayList<>();
+        for (String s : STAGES) {
+            if (stage.equals("all") || stage.equals(s)) {
+                stages.add(s);
+            }
+        }
+        if (stages.isEmpty() && !stage.equals("scaling") && !stage.equals("budget") && !stage.equals("heap")) {
+            System.err.println("Unknown stage '" + stage + "'. Stages: all, scaling, budget, heap, " + String.join(", ", STAGES));
+            return;
+        }
+        Properties budgets = null;
+        if (stage.equals("budget")) {
+            String file = (args.length > 1) ? args[1] : DEFAULT_BUDGET_FILE;
+            try {
+                budgets = loadBudgets(file);
+            } catch (IOException e) {
+                System.err.println("Cannot read budget file " + file + ": " + e.getMessage());
+                System.exit(2);
+            }
+        }
+
+        // Lexer and Parser trace every token; only the table should reach the console.
+        // Function caching is off so repeated runs measure the generator, not cache hits.
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        CodeGenerator.cacheFunctions = false;
+        boolean ok = true;
+        try {
+            if (stage.equals("scaling")) {
+                int base = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+                int doublings = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+                double density = (args.length > 3) ? Double.parseDouble(args[3]) : 0.05;
+                ok = checkScaling(base, doublings, density, stdout);
+            } else if (budgets != null) {
+                ok = checkBudgets(budgets, stdout);
+            } else if (stage.equals("heap")) {
+                int statements = (args.length > 1) ? Integer.parseInt(args[1]) : 50_000;
+                int identifiers = (args.length > 2) ? Integer.parseInt(args[2]) : 8;
+                reportHeap(statements, identifiers, stdout);
+            } else {
+                int[] sizes = parseSizes((args.length > 1) ? args[1] : "100,1000,5000");
+                double[] densities = parseDensities((args.length > 2) ? args[2] : "0,0.05,0.2");
+                printHeader(stdout);
+                for (String s : stages) {
+                    for (int size : sizes) {
+                        for (double density : densities) {
+                            print(measure(s, size, density), stdout);
+                        }
+                    }
+                }
+            }
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+// Sends one script to a running TranspileServer: generated Java on stdout, diagnostics on stderr
+public class TranspileClient {
+    // java TranspileClient <file.py | --stats> [port]
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java TranspileClient <file.py | --stats> [port]");
+            System.exit(2);
+        }
+        int port = (args.length > 1) ? Integer.parseInt(args[1]) : TranspileServer.DEFAULT_PORT;
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String request;
+            if (args[0].equals("--stats")) {
+                request = "{\"command\":\"stats\"}";
+            } else {
+                String code = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+                request = "{\"id\":" + Json.quote(args[0]) + ",\"code\":" + Json.quote(code) + "}";
+            }
+            out.write(request);
+            out.write('\n');
+            out.flush();
+
+            String line = in.readLine();
+            if (line == null) {
+                System.err.println("Server closed the connection.");
+                System.exit(1);
+            }
+            if (args[0].equals("--stats")) {
+                System.out.println(line);
+                return;
+            }
+
+            Map<String, String> response = Json.parseObject(line);
+            if (response.containsKey("diagnostics")) {
+                for (String diagnostic : Json.parseStringArray(response.get("diagnostics"))) {
+                    System.err.println(diagnostic);
+                }
+            }
+            if (!"true".equals(response.get("ok"))) {
+                System.err.println("Compilation failed: " + response.get("error"));
+                System.exit(1);
+            }
+            System.out.print(response.get("java"));
+        } catch (IOException e) {
+            System.err.println("Could not reach transpile server on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
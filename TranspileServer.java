@@ -0,0 +1,169 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Keeps a warm transpiler resident and serves JSON-lines requests on a loopback TCP port
+//
+// Request:  {"id": "1", "code": "x = 5\nprint(x)\n", "timeoutMillis": 500}   or   {"command": "stats"}
+// Response: {"id": "1", "ok": true, "java": "...", "diagnostics": ["..."], "metrics": {...}, "micros": 812}
+// A compile over its time budget answers with "ok": false, "cancelled": true and the diagnostics so far
+public class TranspileServer {
+    public static final int DEFAULT_PORT = 7878;
+    private static final int LATENCY_SAMPLES = 10_000;
+    // One pathological script must not hold a worker thread for long
+    private static final long DEFAULT_TIMEOUT_MILLIS = 2_000;
+
+    // Ring of the most recent request latencies, in microseconds
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long requestCount = 0;
+    // Pool threads are long-lived, so each keeps its own session and buffers
+    private final ThreadLocal<CompilerSession> sessions = ThreadLocal.withInitial(CompilerSession::new);
+
+    //F35
+    public void serve(int port, int threads) throws IOException {
+        warmUp();
+        PipelineStats.INSTANCE.reset();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("Transpile server listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                executor.submit(() -> handleConnection(socket));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // JIT-compiles Lexer, Parser and CodeGenerator before the first real request arrives
+    private void warmUp() {
+        String sample = "x = 5\nname = \"bob\"\nif x > 3:\n    print(\"big\")\nelse:\n    print(name)\n"
+                + "for i in range(0, 10):\n    print(i + x)\n";
+        for (int i = 0; i < 200; i++) {
+            handleRequest("{\"code\": " + Json.quote(sample) + "}", false);
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                out.write(handleRequest(line, true));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Connection error: " + e.getMessage());
+        }
+    }
+
+    String handleRequest(String line, boolean record) {
+        long start = System.nanoTime();
+        Map<String, String> request;
+        try {
+            request = Json.parseObject(line);
+        } catch (RuntimeException e) {
+            return "{\"ok\":false,\"error\":" + Json.quote("Bad request: " + e.getMessage()) + "}";
+        }
+
+        String id = request.get("id");
+        if ("stats".equals(request.get("command"))) {
+            return "{\"id\":" + Json.quote(id) + ",\"ok\":true," + statsJson() + "}";
+        }
+        String code = request.get("code");
+        if (code == null) {
+            return "{\"id\":" + Json.quote(id) + ",\"ok\":false,\"error\":\"Missing 'code'\"}";
+        }
+
+        long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        if (request.containsKey("timeoutMillis")) {
+            try {
+                timeoutMillis = Long.parseLong(request.get("timeoutMillis"));
+            } catch (NumberFormatException e) {
+                return "{\"id\":" + Json.quote(id) + ",\"ok\":false,\"error\":\"Bad 'timeoutMillis'\"}";
+            }
+        }
+
+        // Diagnostics stay in memory instead of going to error_log.txt
+        CompilationResult result = sessions.get().compileToResult(code, new CompileBudget(timeoutMillis, 0));
+        StringBuilder response = new StringBuilder();
+        response.append("{\"id\":").append(Json.quote(id));
+        if (result.isSuccess()) {
+            response.append(",\"ok\":true,\"java\":").append(Json.quote(result.getJavaCode()));
+        } else {
+            response.append(",\"ok\":false,\"error\":").append(Json.quote(result.getFailure()));
+            if (result.isCancelled()) {
+                response.append(",\"cancelled\":true");
+            }
+        }
+        List<String> diagnostics = new ArrayList<>();
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            diagnostics.add(diagnostic.getMessage());
+        }
+
+        long micros = (System.nanoTime() - start) / 1000;
+        if (record) {
+            recordLatency(micros);
+        }
+        response.append(",\"diagnostics\":").append(Json.array(diagnostics));
+        response.append(",\"metrics\":").append(result.getMetrics().toJson());
+        response.append(",\"micros\":").append(micros).append('}');
+        return response.toString();
+    }
+
+    private synchronized void recordLatency(long micros) {
+        latencies[(int) (requestCount % LATENCY_SAMPLES)] = micros;
+        requestCount++;
+    }
+
+    synchronized String statsJson() {
+        int size = (int) Math.min(requestCount, LATENCY_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        return "\"requests\":" + requestCount
+                + ",\"p50Micros\":" + percentile(sorted, 0.50)
+                + ",\"p99Micros\":" + percentile(sorted, 0.99);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // java TranspileServer [port] [threads]
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        // Lexer and Parser trace every token to stdout; keep the server's console readable
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        PipelineStats.register();
+        TranspileServer server = new TranspileServer();
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                System.err.println("Transpile server stopped: {" + server.statsJson() + "}")));
+        server.serve(port, threads);
+    }
+}
@@ -0,0 +1,109 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder events for the pipeline; when JFR is not recording, shouldCommit() is false and nothing is built
+public class TranspilerEvents {
+    @Name("transpiler.Stage")
+    @Label("Pipeline Stage")
+    @Category("Transpiler")
+    @Description("One stage of a compilation, e.g. tokenize or generateJavaCode")
+    static class Stage extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Items")
+        @Description("Tokens, nodes or output chars produced by the stage")
+        long items;
+
+        @Label("Item Unit")
+        String itemUnit;
+
+        @Label("Diagnostics")
+        long diagnostics;
+    }
+
+    @Name("transpiler.TokenDropped")
+    @Label("Invalid Token Dropped")
+    @Category({"Transpiler", "Recovery"})
+    static class TokenDropped extends Event {
+        @Label("Line")
+        int line;
+
+        @Label("Token")
+        String token;
+
+        @Label("Reason")
+        String reason;
+    }
+
+    @Name("transpiler.SymbolInserted")
+    @Label("Symbol Inserted")
+    @Category({"Transpiler", "Recovery"})
+    @Description("Parser recovery added a missing ':' or ')'")
+    static class SymbolInserted extends Event {
+        @Label("Line")
+        int line;
+
+        @Label("Symbol")
+        String symbol;
+
+        @Label("Construct")
+        String construct;
+    }
+
+    @Name("transpiler.UndefinedVariable")
+    @Label("Undefined Variable Suggestion")
+    @Category({"Transpiler", "Recovery"})
+    @Description("Lookup of the closest declared name for an undefined variable")
+    static class UndefinedVariable extends Event {
+        @Label("Line")
+        int line;
+
+        @Label("Variable")
+        String variable;
+
+        @Label("Suggestion")
+        String suggestion;
+
+        @Label("Declared Names")
+        int candidates;
+    }
+
+    //F39
+    // Recovery events are begun before the work they describe and ended by the calls below, so their
+    // duration is what the recovery cost
+    static TokenDropped beginTokenDrop() {
+        TokenDropped event = new TokenDropped();
+        event.begin();
+        return event;
+    }
+
+    static void tokenDropped(TokenDropped event, int line, String token, String reason) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.line = line;
+            event.token = token;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
+    static SymbolInserted beginSymbolInsert() {
+        SymbolInserted event = new SymbolInserted();
+        event.begin();
+        return event;
+    }
+
+    static void symbolInserted(SymbolInserted event, int line, String symbol, String construct) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.line = line;
+            event.symbol = symbol;
+            event.construct = construct;
+            event.commit();
+        }
+    }
+}
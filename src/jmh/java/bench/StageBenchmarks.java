@@ -0,0 +1,58 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH throughput of each pipeline stage across input sizes and error densities. Allocation comes from the GC
+// profiler: java -jar target/benchmarks.jar -prof gc
+//
+// JMH refuses benchmarks in the default package and a named package cannot import the compiler's classes, so the
+// work to time comes from StageBenchmark.operation, looked up by reflection once per trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageBenchmarks {
+    @Param({"tokenize", "recoverFromLexErrors", "buildParseTree", "convertParseTreeToAST", "generateJavaCode", "readsourcefile"})
+    public String stage;
+
+    @Param({"100", "1000", "5000"})
+    public int statements;
+
+    @Param({"0", "0.05", "0.2"})
+    public double errorDensity;
+
+    private Callable<Object> operation;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        // Lexer and Parser trace every token; function caching would time cache hits instead of the generator
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        Class.forName("CodeGenerator").getField("cacheFunctions").setBoolean(null, false);
+        operation = (Callable<Object>) Class.forName("StageBenchmark")
+                .getMethod("operation", String.class, int.class, double.class)
+                .invoke(null, stage, statements, errorDensity);
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return operation.call();
+    }
+}
@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class CodeGeneratorTest {
+    // Compiles through a session with the pipeline's debug output silenced, then runs the result in memory
+    private static String run(String pythonCode) throws Exception {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        String javaCode;
+        try (CompilerSession session = new CompilerSession()) {
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            javaCode = session.compile(pythonCode);
+            System.setOut(new PrintStream(printed, true));
+            JavaRunner.run(javaCode);
+        } finally {
+            System.setOut(out);
+        }
+        return new String(printed.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Each rewritten loop declares s$builder; sibling loops used to declare it twice in one scope
+    @Test
+    void siblingLoopsAccumulateIntoTheSameString() throws Exception {
+        String python = "s = \"a\"\n"
+                + "for i in range(0, 3):\n"
+                + "    s = s + \"x\"\n"
+                + "for i in range(0, 2):\n"
+                + "    s = s + \"y\"\n"
+                + "for i in range(0, 1):\n"
+                + "    print(s)\n";
+        assertEquals("axxxyy" + System.lineSeparator(), run(python));
+    }
+}